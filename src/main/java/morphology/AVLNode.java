@@ -1,30 +1,223 @@
 package morphology;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.IntFunction;
 
 /**
  * Nœud de l'arbre AVL contenant une racine arabe trilitere.
  * Chaque nœud stocke la racine, ses mots derives valides et leur frequence.
+ *
+ * La racine est conservee sous forme de cle RootKey (3 lettres de 6 bits) :
+ * les comparaisons de l'arbre sont de simples comparaisons d'entiers, et la
+ * forme textuelle n'est reconstruite qu'a l'affichage (getRootWord).
+ *
+ * Un derive valide est toujours le produit d'un scheme applique a la racine :
+ * il est donc enregistre comme l'identifiant du scheme dans un ensemble de bits
+ * (deduplication en O(1)). Le mot est reconstruit par Scheme.apply ; seules
+ * les formes de surface differentes de la forme generee (mot vocalise, etc.)
+ * sont conservees dans une petite table annexe. Rien n'est alloue tant que
+ * la racine n'a aucun derive.
+ *
+ * Concurrence : l'ensemble des derives (et la frequence qu'il porte) est un
+ * objet immuable remplace par compare-and-set (copie a l'ecriture).
+ * L'enregistrement d'un derive est donc non bloquant et peut avoir lieu
+ * pendant que d'autres threads lisent le nœud.
+ *
+ * Stockage hors tas : si le moteur utilise une DerivativeArena, derivatives
+ * contient la marque de l'arene et l'etat est lu et ecrit dans l'arene, a la
+ * position ref. L'API publique du nœud est la meme dans les deux cas.
  */
 public class AVLNode {
-    String root;                          // Racine arabe (ex: كتب)
-    List<String> derivedWords;            // Liste des mots derives valides
-    int frequency;                        // Frequence d'apparition
+    final int root;                       // Racine arabe empaquetee (ex: كتب)
+    volatile Derivatives derivatives;     // Derives valides (null si aucun)
+    volatile long ref;                    // Position dans l'arene (voir DerivativeArena)
     AVLNode left, right;
     int height;
+    int size;                             // Nombre de nœuds du sous-arbre
 
-    public AVLNode(String root) {
+    static final VarHandle DERIVATIVES;
+    static final VarHandle REF;
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            DERIVATIVES = l.findVarHandle(AVLNode.class, "derivatives", Derivatives.class);
+            REF         = l.findVarHandle(AVLNode.class, "ref",         long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Etat immuable des derives : bits par scheme + formes de surface annexes
+    // + frequence (incrementee a chaque nouveau derive, donc dans la meme copie).
+    // Les formes de surface sont codees a la suite dans un seul tableau
+    // (ArabicCodec, un octet par lettre arabe) : la i-eme occupe
+    // surfaceData[surfaceEnds[i-1]..surfaceEnds[i]) et n'est decodee en String
+    // qu'a la lecture.
+    static class Derivatives {
+        final long[] bits;
+        final int[]  surfaceIds;     // tries par identifiant de scheme
+        final int[]  surfaceEnds;
+        final byte[] surfaceData;
+        final int    frequency;
+
+        Derivatives(long[] bits, int[] surfaceIds, int[] surfaceEnds, byte[] surfaceData, int frequency) {
+            this.bits        = bits;
+            this.surfaceIds  = surfaceIds;
+            this.surfaceEnds = surfaceEnds;
+            this.surfaceData = surfaceData;
+            this.frequency   = frequency;
+        }
+
+        Derivatives(long[] bits, int[] surfaceIds, String[] surfaceWords, int frequency) {
+            this.bits        = bits;
+            this.surfaceIds  = surfaceIds;
+            this.frequency   = frequency;
+            this.surfaceEnds = new int[surfaceWords.length];
+            int length = 0;
+            for (String w : surfaceWords) length += ArabicCodec.encodedLength(w);
+            this.surfaceData = new byte[length];
+            for (int i = 0, at = 0; i < surfaceWords.length; i++) {
+                at = ArabicCodec.encode(surfaceWords[i], surfaceData, at);
+                surfaceEnds[i] = at;
+            }
+        }
+
+        boolean contains(int id) {
+            int word = id >>> 6;
+            return word < bits.length && (bits[word] & (1L << id)) != 0;
+        }
+
+        /** i-eme forme de surface (ordre de surfaceIds). */
+        String surfaceAt(int i) {
+            return ArabicCodec.decode(surfaceData, i == 0 ? 0 : surfaceEnds[i - 1], surfaceEnds[i]);
+        }
+
+        String surface(int id) {
+            int i = Arrays.binarySearch(surfaceIds, id);
+            return i >= 0 ? surfaceAt(i) : null;
+        }
+
+        Derivatives with(int id, String surface) {
+            long[] b = Arrays.copyOf(bits, Math.max(bits.length, (id >>> 6) + 1));
+            b[id >>> 6] |= 1L << id;
+            if (surface == null) return new Derivatives(b, surfaceIds, surfaceEnds, surfaceData, frequency + 1);
+            int at   = -Arrays.binarySearch(surfaceIds, id) - 1;
+            int from = at == 0 ? 0 : surfaceEnds[at - 1];
+            int len  = ArabicCodec.encodedLength(surface);
+            int[]  ids  = new int[surfaceIds.length + 1];
+            int[]  ends = new int[ids.length];
+            byte[] data = new byte[surfaceData.length + len];
+            System.arraycopy(surfaceIds,  0, ids,  0, at);
+            System.arraycopy(surfaceEnds, 0, ends, 0, at);
+            System.arraycopy(surfaceData, 0, data, 0, from);
+            ids[at]  = id;
+            ends[at] = ArabicCodec.encode(surface, data, from);
+            System.arraycopy(surfaceIds,  at, ids, at + 1, surfaceIds.length - at);
+            for (int i = at; i < surfaceEnds.length; i++) ends[i + 1] = surfaceEnds[i] + len;
+            System.arraycopy(surfaceData, from, data, from + len, surfaceData.length - from);
+            return new Derivatives(b, ids, ends, data, frequency + 1);
+        }
+    }
+
+    static final Derivatives EMPTY = new Derivatives(new long[0], new int[0], new int[0], new byte[0], 0);
+
+    public AVLNode(int root) {
         this.root = root;
-        this.derivedWords = new ArrayList<>();
-        this.frequency = 0;
         this.height = 1;
+        this.size = 1;
     }
 
-    public void addDerivedWord(String word) {
-        if (!derivedWords.contains(word)) {
-            derivedWords.add(word);
-            frequency++;
+    /**
+     * Enregistre un derive valide, produit par le scheme donne.
+     * Operation atomique et non bloquante (boucle de compare-and-set).
+     *
+     * @param scheme  le scheme ayant reconnu le mot (identifiant attribue par le moteur)
+     * @param surface le mot tel que saisi, ou null pour la forme generee
+     * @return true si le derive est nouveau pour cette racine
+     */
+    public boolean addDerivative(Scheme scheme, String surface) {
+        int id = scheme.getId();
+        if (id < 0) throw new IllegalArgumentException("Scheme non enregistre : " + scheme.getName());
+        if (hasDerivative(id)) return false;
+
+        String extra = (surface != null && !surface.equals(scheme.apply(consonants()))) ? surface : null;
+        return addDerivative(id, extra);
+    }
+
+    // Boucle de compare-and-set, sur le tas ou dans l'arene
+    boolean addDerivative(int id, String extra) {
+        while (true) {
+            Derivatives current = derivatives;
+            if (current instanceof DerivativeArena.Marker m) return m.arena().add(this, id, extra);
+            Derivatives base = current == null ? EMPTY : current;
+            if (base.contains(id)) return false;
+            if (DERIVATIVES.compareAndSet(this, current, base.with(id, extra))) return true;
+        }
+    }
+
+    // Etat courant des derives, decode depuis l'arene si besoin (null si aucun)
+    Derivatives derivatives() {
+        Derivatives d = derivatives;
+        return d instanceof DerivativeArena.Marker m ? m.arena().read(this) : d;
+    }
+
+    /** Indique si la racine a deja un derive valide pour ce scheme. */
+    public boolean hasDerivative(int schemeId) {
+        Derivatives d = derivatives;
+        if (d instanceof DerivativeArena.Marker m) return m.arena().contains(this, schemeId);
+        return d != null && d.contains(schemeId);
+    }
+
+    /** Frequence d'apparition : nombre de derives enregistres. */
+    public int getFrequency() {
+        Derivatives d = derivatives;
+        if (d instanceof DerivativeArena.Marker m) return m.arena().frequency(this);
+        return d == null ? 0 : d.frequency;
+    }
+
+    /** Nombre de derives valides. */
+    public int getDerivedCount() {
+        Derivatives d = derivatives;
+        if (d instanceof DerivativeArena.Marker m) return m.arena().derivedCount(this);
+        if (d == null) return 0;
+        int count = 0;
+        for (long bits : d.bits) count += Long.bitCount(bits);
+        return count;
+    }
+
+    /**
+     * Reconstruit la liste des derives valides, par ordre d'identifiant de scheme.
+     * @param schemeById resolution d'un identifiant de scheme (registre du moteur)
+     */
+    public List<String> getDerivedWords(IntFunction<Scheme> schemeById) {
+        Derivatives d = derivatives();
+        if (d == null) return Collections.emptyList();
+        List<String> words = new ArrayList<>();
+        char[] cons = consonants();
+        for (int w = 0; w < d.bits.length; w++) {
+            for (long bits = d.bits[w]; bits != 0; bits &= bits - 1) {
+                int id = w << 6 | Long.numberOfTrailingZeros(bits);
+                String surface = d.surface(id);
+                words.add(surface != null ? surface : schemeById.apply(id).apply(cons));
+            }
         }
+        return words;
     }
+
+    private char[] consonants() {
+        char[] cons = new char[3];
+        RootKey.decode(root, cons, 0);
+        return cons;
+    }
+
+    /** Cle RootKey de la racine. */
+    public int getRootKey() { return root; }
+
+    /** Forme textuelle de la racine (decodee a la demande). */
+    public String getRootWord() { return RootKey.toString(root); }
 }
@@ -1,14 +1,39 @@
 package morphology;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * Arbre AVL pour l'indexation efficace des racines arabes triliteres.
- * La comparaison des racines se fait caractere par caractere (Unicode arabe).
+ * Les racines sont indexees par leur cle RootKey : une comparaison d'entiers
+ * equivaut a la comparaison caractere par caractere (Unicode arabe).
  * Complexite : O(log n) pour insertion, recherche et suppression.
+ *
+ * Seules les racines triliteres ont une cle : insert(String) rejette toute
+ * autre chaine (IllegalArgumentException) au lieu de l'inserer telle quelle
+ * comme avant le passage aux cles entieres ; search(String) retourne alors
+ * null et delete(String) ne fait rien. Le moteur valide les racines (voir
+ * MorphologyEngine.insertRoot) avant de les inserer.
+ *
+ * Chaque nœud maintient la taille de son sous-arbre (mise a jour avec la
+ * hauteur lors des rotations et du reequilibrage) : size() est en O(1), et
+ * rank / select / countRange / range sont en O(log n) (+ taille de la page).
+ *
+ * Le parcours in-order est iteratif (pile explicite, sans recursion) et
+ * paresseux : iterator() et spliterator() ne copient pas l'arbre. Le
+ * spliterator se decoupe par rangs grace aux tailles des sous-arbres, ce qui
+ * permet des traitements paralleles sur tout le lexique. L'arbre ne doit pas
+ * etre modifie pendant un parcours.
  */
-public class AVLTree {
+public class AVLTree implements Iterable<AVLNode> {
+
+    // Hauteur maximale d'un arbre AVL de 2^18 racines (~1.44 log2 n), avec marge
+    private static final int MAX_HEIGHT = 64;
 
     private AVLNode root;
 
@@ -22,8 +47,13 @@ public class AVLTree {
         return node == null ? 0 : height(node.left) - height(node.right);
     }
 
+    private int size(AVLNode node) {
+        return node == null ? 0 : node.size;
+    }
+
     private void updateHeight(AVLNode node) {
         node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.size   = 1 + size(node.left) + size(node.right);
     }
 
     private AVLNode rotateRight(AVLNode y) {
@@ -73,18 +103,30 @@ public class AVLTree {
 
     /**
      * Insere une racine dans l'arbre AVL.
-     * @param rootWord la racine arabe a inserer
+     * @param rootWord la racine arabe a inserer (exactement 3 consonnes,
+     *                 diacritiques et separateurs ignores)
+     * @throws IllegalArgumentException si la racine n'est pas trilitere
+     *         (elle n'est alors pas inseree)
      */
     public void insert(String rootWord) {
-        root = insert(root, rootWord);
+        insert(requireKey(rootWord));
+    }
+
+    /**
+     * Insere une racine, donnee par sa cle RootKey, dans l'arbre AVL.
+     * @return le nœud portant la racine (nouveau ou deja present)
+     */
+    public AVLNode insert(int key) {
+        AVLNode[] holder = new AVLNode[1];
+        root = insert(root, key, holder);
+        return holder[0];
     }
 
-    private AVLNode insert(AVLNode node, String rootWord) {
-        if (node == null) return new AVLNode(rootWord);
-        int cmp = rootWord.compareTo(node.root);
-        if (cmp < 0)       node.left  = insert(node.left,  rootWord);
-        else if (cmp > 0)  node.right = insert(node.right, rootWord);
-        else return node; // deja presente
+    private AVLNode insert(AVLNode node, int key, AVLNode[] holder) {
+        if (node == null) return holder[0] = new AVLNode(key);
+        if (key < node.root)      node.left  = insert(node.left,  key, holder);
+        else if (key > node.root) node.right = insert(node.right, key, holder);
+        else return holder[0] = node; // deja presente
         return balance(node);
     }
 
@@ -94,15 +136,37 @@ public class AVLTree {
      * @return le nœud AVL ou null si absent
      */
     public AVLNode search(String rootWord) {
-        return search(root, rootWord);
+        int key = RootKey.of(rootWord);
+        return key == RootKey.NONE ? null : search(key);
     }
 
-    private AVLNode search(AVLNode node, String rootWord) {
-        if (node == null) return null;
-        int cmp = rootWord.compareTo(node.root);
-        if (cmp == 0)  return node;
-        if (cmp < 0)   return search(node.left,  rootWord);
-        return             search(node.right, rootWord);
+    /**
+     * Recherche une racine par sa cle RootKey.
+     * @return le nœud AVL ou null si absent
+     */
+    public AVLNode search(int key) {
+        AVLNode node = root;
+        while (node != null) {
+            if (key == node.root) return node;
+            node = key < node.root ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Recherche tolerant une modification concurrente de l'arbre (lecture
+     * optimiste) : le nombre de pas est borne par la hauteur maximale d'un
+     * arbre AVL, pour ne jamais boucler sur un etat intermediaire d'une
+     * rotation. Le resultat n'est fiable que si aucune ecriture n'a eu lieu
+     * pendant la recherche (a verifier par l'appelant).
+     */
+    AVLNode searchOptimistic(int key) {
+        AVLNode node = root;
+        for (int depth = 0; node != null && depth < MAX_HEIGHT; depth++) {
+            if (key == node.root) return node;
+            node = key < node.root ? node.left : node.right;
+        }
+        return null;
     }
 
     /**
@@ -110,42 +174,119 @@ public class AVLTree {
      * @param rootWord la racine a supprimer
      */
     public void delete(String rootWord) {
-        root = delete(root, rootWord);
+        int key = RootKey.of(rootWord);
+        if (key != RootKey.NONE) delete(key);
+    }
+
+    /**
+     * Supprime une racine, donnee par sa cle RootKey, de l'arbre.
+     */
+    public void delete(int key) {
+        root = delete(root, key);
     }
 
-    private AVLNode delete(AVLNode node, String rootWord) {
+    private AVLNode delete(AVLNode node, int key) {
         if (node == null) return null;
-        int cmp = rootWord.compareTo(node.root);
-        if (cmp < 0) {
-            node.left = delete(node.left, rootWord);
-        } else if (cmp > 0) {
-            node.right = delete(node.right, rootWord);
+        if (key < node.root) {
+            node.left = delete(node.left, key);
+        } else if (key > node.root) {
+            node.right = delete(node.right, key);
         } else {
             if (node.left == null || node.right == null) {
                 node = (node.left != null) ? node.left : node.right;
             } else {
-                AVLNode minRight = minNode(node.right);
-                node.root = minRight.root;
-                node.derivedWords = minRight.derivedWords;
-                node.frequency = minRight.frequency;
-                node.right = delete(node.right, minRight.root);
+                // Le successeur prend la place du nœud supprime : chaque racine
+                // reste portee par le meme nœud (references externes stables).
+                AVLNode successor = minNode(node.right);
+                successor.right = removeMin(node.right);
+                successor.left  = node.left;
+                node = successor;
             }
         }
         return node == null ? null : balance(node);
     }
 
+    /**
+     * Chargement en masse : fusionne des cles triees dans l'arbre et le
+     * reconstruit parfaitement equilibre, en temps lineaire O(n + m).
+     *
+     * Les nœuds existants sont conserves (avec leurs derives), les doublons
+     * et les cles deja presentes sont ignores. Les hauteurs et les tailles
+     * de sous-arbres sont recalculees lors de la construction ascendante.
+     *
+     * @param sortedKeys cles RootKey en ordre croissant (doublons permis)
+     * @param added      appele pour chaque nouveau nœud (peut etre null)
+     * @return le nombre de racines effectivement ajoutees
+     */
+    public int bulkLoad(int[] sortedKeys, Consumer<AVLNode> added) {
+        AVLNode[] merged = new AVLNode[size() + sortedKeys.length];
+        int n = 0, i = 0, count = 0;
+        Iterator<AVLNode> existing = iterator();
+        AVLNode next = existing.hasNext() ? existing.next() : null;
+        while (next != null || i < sortedKeys.length) {
+            if (next == null || (i < sortedKeys.length && sortedKeys[i] < next.root)) {
+                int key = sortedKeys[i++];
+                if (n > 0 && merged[n - 1].root == key) continue; // doublon
+                AVLNode node = new AVLNode(key);
+                merged[n++] = node;
+                count++;
+                if (added != null) added.accept(node);
+            } else if (i < sortedKeys.length && sortedKeys[i] == next.root) {
+                i++; // deja presente
+            } else {
+                merged[n++] = next;
+                next = existing.hasNext() ? existing.next() : null;
+            }
+        }
+        root = build(merged, 0, n - 1);
+        return count;
+    }
+
+    /**
+     * Remplace le contenu de l'arbre par des nœuds construits a l'exterieur
+     * (chargement d'un instantane), deja tries par cle strictement croissante.
+     * Construction equilibree en O(n), sans insertion ni rotation.
+     *
+     * @throws IllegalArgumentException si les cles ne sont pas strictement croissantes
+     */
+    void loadSorted(AVLNode[] nodes, int n) {
+        for (int i = 1; i < n; i++) {
+            if (nodes[i - 1].root >= nodes[i].root)
+                throw new IllegalArgumentException("Racines non triees : " + nodes[i].getRootWord());
+        }
+        root = build(nodes, 0, n - 1);
+    }
+
+    // Construction ascendante d'un sous-arbre equilibre a partir de nœuds tries
+    private AVLNode build(AVLNode[] nodes, int lo, int hi) {
+        if (lo > hi) return null;
+        int mid = (lo + hi) >>> 1;
+        AVLNode node = nodes[mid];
+        node.left  = build(nodes, lo, mid - 1);
+        node.right = build(nodes, mid + 1, hi);
+        updateHeight(node);
+        return node;
+    }
+
     private AVLNode minNode(AVLNode node) {
         while (node.left != null) node = node.left;
         return node;
     }
 
+    // Detache le minimum d'un sous-arbre et retourne le sous-arbre reequilibre
+    private AVLNode removeMin(AVLNode node) {
+        if (node.left == null) return node.right;
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
     /**
-     * Ajoute un mot derive valide a une racine existante.
+     * Ajoute un derive valide (produit par le scheme donne) a une racine existante.
      */
-    public boolean addDerivedWord(String rootWord, String derivedWord) {
+    public boolean addDerivative(String rootWord, Scheme scheme, String surface) {
         AVLNode node = search(rootWord);
         if (node == null) return false;
-        node.addDerivedWord(derivedWord);
+        node.addDerivative(scheme, surface);
         return true;
     }
 
@@ -153,16 +294,128 @@ public class AVLTree {
      * Retourne toutes les racines en ordre in-order (ordre lexicographique arabe).
      */
     public List<String> getAllRoots() {
-        List<String> result = new ArrayList<>();
-        inOrder(root, result);
+        List<String> result = new ArrayList<>(size());
+        for (AVLNode node : this) result.add(node.getRootWord());
         return result;
     }
 
-    private void inOrder(AVLNode node, List<String> result) {
-        if (node == null) return;
-        inOrder(node.left, result);
-        result.add(node.root);
-        inOrder(node.right, result);
+    /**
+     * Applique une action a chaque nœud, en ordre in-order.
+     */
+    public void forEachNode(Consumer<AVLNode> action) {
+        forEach(action);
+    }
+
+    // --- Parcours paresseux --------------------------------------------------------
+
+    /**
+     * Iterateur in-order (ordre croissant des racines), sans recursion.
+     */
+    @Override
+    public Iterator<AVLNode> iterator() {
+        return new InOrderIterator(root, 0);
+    }
+
+    /**
+     * Spliterator ordonne et dimensionne, decoupable par rangs.
+     * Utilise par MorphologyEngine.roots() pour les flux (paralleles ou non).
+     */
+    @Override
+    public Spliterator<AVLNode> spliterator() {
+        return new RankSpliterator(root, 0, size(root));
+    }
+
+    // Parcours in-order a partir du nœud de rang 'from' (pile explicite)
+    private static final class InOrderIterator implements Iterator<AVLNode> {
+        private final AVLNode[] stack;
+        private int             top;
+
+        InOrderIterator(AVLNode subtree, int from) {
+            this.stack = new AVLNode[subtree == null ? 0 : subtree.height];
+            // Descente jusqu'au rang 'from', en empilant les ancetres restant a visiter
+            AVLNode node = subtree;
+            while (node != null) {
+                int leftSize = node.left == null ? 0 : node.left.size;
+                if (from < leftSize) {
+                    stack[top++] = node;
+                    node = node.left;
+                } else if (from == leftSize) {
+                    stack[top++] = node;
+                    break;
+                } else {
+                    from -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return top > 0;
+        }
+
+        @Override
+        public AVLNode next() {
+            if (top == 0) throw new NoSuchElementException();
+            AVLNode node = stack[--top];
+            for (AVLNode n = node.right; n != null; n = n.left) stack[top++] = n;
+            return node;
+        }
+    }
+
+    // Spliterator sur les rangs [from, to) d'un arbre fige a la creation
+    private static final class RankSpliterator implements Spliterator<AVLNode> {
+        private final AVLNode   subtree;
+        private int             from;
+        private final int       to;
+        private InOrderIterator it;
+
+        RankSpliterator(AVLNode subtree, int from, int to) {
+            this.subtree = subtree;
+            this.from    = from;
+            this.to      = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super AVLNode> action) {
+            if (from >= to) return false;
+            if (it == null) it = new InOrderIterator(subtree, from);
+            from++;
+            action.accept(it.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super AVLNode> action) {
+            if (from >= to) return;
+            if (it == null) it = new InOrderIterator(subtree, from);
+            for (; from < to; from++) action.accept(it.next());
+        }
+
+        @Override
+        public Spliterator<AVLNode> trySplit() {
+            // Decoupage uniquement avant le debut du parcours
+            if (it != null || to - from < 2) return null;
+            int mid = (from + to) >>> 1;
+            Spliterator<AVLNode> prefix = new RankSpliterator(subtree, from, mid);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super AVLNode> getComparator() {
+            return Comparator.comparingInt(AVLNode::getRootKey);
+        }
     }
 
     /**
@@ -181,8 +434,8 @@ public class AVLTree {
 
     private void displayTree(AVLNode node, String prefix, boolean isRight) {
         if (node == null) return;
-        System.out.println(prefix + (isRight ? "+-- " : "+-- ") + node.root
-                + " [h=" + node.height + ", derives=" + node.derivedWords.size() + "]");
+        System.out.println(prefix + (isRight ? "+-- " : "+-- ") + node.getRootWord()
+                + " [h=" + node.height + ", derives=" + node.getDerivedCount() + "]");
         if (node.left != null || node.right != null) {
             displayTree(node.right, prefix + (isRight ? "    " : "|   "), true);
             displayTree(node.left,  prefix + (isRight ? "    " : "|   "), false);
@@ -197,15 +450,126 @@ public class AVLTree {
     }
 
     /**
-     * Retourne le nombre de racines dans l'arbre.
+     * Retourne le nombre de racines dans l'arbre (O(1)).
      */
     public int size() {
         return size(root);
     }
 
-    private int size(AVLNode node) {
-        if (node == null) return 0;
-        return 1 + size(node.left) + size(node.right);
+    // --- Requetes d'ordre ----------------------------------------------------------
+
+    /**
+     * Rang d'une racine : nombre de racines strictement inferieures.
+     * La racine n'a pas besoin d'etre presente dans l'arbre.
+     */
+    public int rank(int key) {
+        int rank = 0;
+        AVLNode node = root;
+        while (node != null) {
+            if (key <= node.root) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    public int rank(String rootWord) {
+        return rank(requireKey(rootWord));
+    }
+
+    /**
+     * Retourne la k-ieme racine dans l'ordre (k commence a 0).
+     * @return le nœud, ou null si k est hors limites
+     */
+    public AVLNode select(int k) {
+        if (k < 0 || k >= size()) return null;
+        AVLNode node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k == leftSize) {
+                return node;
+            } else {
+                k -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Nombre de racines comprises entre lo et hi (bornes incluses).
+     */
+    public int countRange(int lo, int hi) {
+        if (lo > hi) return 0;
+        return rank(hi) + (search(hi) != null ? 1 : 0) - rank(lo);
+    }
+
+    public int countRange(String lo, String hi) {
+        return countRange(requireKey(lo), requireKey(hi));
+    }
+
+    /**
+     * Page de racines comprises entre lo et hi (bornes incluses), en ordre.
+     * @param offset nombre de racines de l'intervalle a sauter
+     * @param limit  nombre maximal de racines retournees
+     * @throws IllegalArgumentException si offset ou limit est negatif
+     */
+    public List<AVLNode> range(int lo, int hi, int offset, int limit) {
+        requirePage(offset, limit);
+        int count = Math.min(Math.max(countRange(lo, hi) - offset, 0), limit);
+        List<AVLNode> page = new ArrayList<>(count);
+        if (count > 0) collect(root, rank(lo) + offset, count, page);
+        return page;
+    }
+
+    public List<AVLNode> range(String lo, String hi, int offset, int limit) {
+        return range(requireKey(lo), requireKey(hi), offset, limit);
+    }
+
+    /**
+     * Page de racines par position dans l'ordre global (sans bornes).
+     * @throws IllegalArgumentException si offset ou limit est negatif
+     */
+    public List<AVLNode> page(int offset, int limit) {
+        requirePage(offset, limit);
+        int count = Math.min(Math.max(size() - offset, 0), limit);
+        List<AVLNode> page = new ArrayList<>(count);
+        if (count > 0) collect(root, offset, count, page);
+        return page;
+    }
+
+    // Ajoute les nœuds de rangs [from, from+count) du sous-arbre, en ordre
+    private void collect(AVLNode node, int from, int count, List<AVLNode> out) {
+        if (node == null || count <= 0) return;
+        int leftSize = size(node.left);
+        if (from < leftSize) {
+            int fromLeft = Math.min(count, leftSize - from);
+            collect(node.left, from, fromLeft, out);
+            from  = leftSize;
+            count -= fromLeft;
+        }
+        if (count > 0 && from == leftSize) {
+            out.add(node);
+            count--;
+            from++;
+        }
+        if (count > 0) collect(node.right, from - leftSize - 1, count, out);
+    }
+
+    private static void requirePage(int offset, int limit) {
+        if (offset < 0 || limit < 0)
+            throw new IllegalArgumentException("Pagination invalide : offset=" + offset + ", limit=" + limit);
+    }
+
+    private static int requireKey(String rootWord) {
+        int key = RootKey.of(rootWord);
+        if (key == RootKey.NONE) throw new IllegalArgumentException("Racine non trilitere : " + rootWord);
+        return key;
     }
 
     public AVLNode getRoot() { return root; }
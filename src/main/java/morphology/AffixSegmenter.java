@@ -0,0 +1,188 @@
+package morphology;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Segmentation des clitiques et affixes avant la recherche de scheme.
+ *
+ * Un mot du texte porte souvent des proclitiques (و، ف، ب، ك، ل، ال) et des
+ * suffixes (ات، ون، ين، ها، هم، ة) que les squelettes des schemes ne prevoient
+ * pas. Plutot que d'essayer toutes les coupures du mot, deux tries compiles a
+ * la construction listent en une seule passe les prefixes possibles (trie
+ * avant, parcouru depuis le debut du mot) et les suffixes possibles (trie
+ * arriere, parcouru depuis la fin). Chaque couple (prefixe, suffixe) laisse un
+ * radical candidat, retenu seulement si un scheme produit des mots de cette
+ * longueur (CompiledSchemeSet.hasLength) : seuls ces radicaux sont soumis
+ * au filtrage par schemes.
+ *
+ * Les affixes et le mot sont traites sous forme consonantique (voir
+ * Scheme.extractConsonants) ; les tries sont indexes par les codes RootKey.
+ * Le moteur segmente les mots normalises par son normaliseur : il utilise
+ * normalized(normalizer), dont les affixes ont les memes replis de lettres
+ * (ة → ه avec FOLD_TA_MARBUTA, par exemple).
+ *
+ * Un decoupage est empaquete dans un int : longueur du prefixe (16 bits forts)
+ * et longueur du suffixe (16 bits faibles). Le mot entier (0, 0) est toujours
+ * le premier candidat s'il est plausible.
+ */
+public final class AffixSegmenter {
+
+    /** Suffixes par defaut : ات، ون، ين، ها، هم، ة. */
+    public static final List<String> DEFAULT_SUFFIXES = List.of(
+            "\u0627\u062A", "\u0648\u0646", "\u064A\u0646", "\u0647\u0627", "\u0647\u0645", "\u0629");
+
+    /**
+     * Proclitiques par defaut : conjonction (و، ف), puis preposition (ب، ك، ل),
+     * puis article (ال), chacun facultatif (ل + ال s'ecrit لل).
+     */
+    public static final List<String> DEFAULT_PREFIXES = defaultPrefixes();
+
+    private static List<String> defaultPrefixes() {
+        String alif = "\u0627", lam = "\u0644";
+        List<String> prefixes = new ArrayList<>();
+        for (String conj : new String[]{"", "\u0648", "\u0641"}) {
+            for (String prep : new String[]{"", "\u0628", "\u0643", lam}) {
+                for (String art : new String[]{"", alif + lam}) {
+                    String p = prep.equals(lam) && !art.isEmpty() ? conj + lam + lam : conj + prep + art;
+                    if (!p.isEmpty()) prefixes.add(p);
+                }
+            }
+        }
+        return Collections.unmodifiableList(prefixes);
+    }
+
+    private final List<String> prefixList;
+    private final List<String> suffixList;
+    private final Trie prefixes;
+    private final Trie suffixes;
+
+    public AffixSegmenter() {
+        this(DEFAULT_PREFIXES, DEFAULT_SUFFIXES);
+    }
+
+    /**
+     * @param prefixes proclitiques reconnus (consonnes uniquement)
+     * @param suffixes suffixes reconnus (consonnes uniquement)
+     * @throws IllegalArgumentException si un affixe est vide ou contient autre chose que des consonnes
+     */
+    public AffixSegmenter(Collection<String> prefixes, Collection<String> suffixes) {
+        this.prefixList = List.copyOf(prefixes);
+        this.suffixList = List.copyOf(suffixes);
+        this.prefixes   = new Trie(prefixes, false);
+        this.suffixes   = new Trie(suffixes, true);
+    }
+
+    /**
+     * Segmenteur dont les affixes ont les lettres repliees par ce normaliseur ;
+     * this si aucun affixe ne change (normaliseur sans repli).
+     */
+    public AffixSegmenter normalized(ArabicNormalizer normalizer) {
+        List<String> p = fold(prefixList, normalizer), s = fold(suffixList, normalizer);
+        return p.equals(prefixList) && s.equals(suffixList) ? this : new AffixSegmenter(p, s);
+    }
+
+    private static List<String> fold(List<String> affixes, ArabicNormalizer normalizer) {
+        List<String> folded = new ArrayList<>(affixes.size());
+        for (String affix : affixes) {
+            char[] chars = affix.toCharArray();
+            for (int i = 0; i < chars.length; i++) chars[i] = normalizer.foldLetter(chars[i]);
+            folded.add(new String(chars));
+        }
+        return folded;
+    }
+
+    public List<String> getPrefixes() { return prefixList; }
+
+    public List<String> getSuffixes() { return suffixList; }
+
+    /** Taille minimale du tableau de sortie de segment(). */
+    public int maxCandidates() {
+        return (prefixes.depth + 1) * (suffixes.depth + 1);
+    }
+
+    /**
+     * Liste les decoupages plausibles des consonnes cons[0..n).
+     *
+     * @param set ensemble de schemes servant au filtre de longueur
+     * @param out decoupages empaquetes (taille au moins maxCandidates())
+     * @return le nombre de decoupages ecrits
+     */
+    public int segment(char[] cons, int n, CompiledSchemeSet set, int[] out) {
+        int[] pre = new int[prefixes.depth + 1];
+        int[] suf = new int[suffixes.depth + 1];
+        int   np  = prefixes.walk(cons, n, pre);
+        int   ns  = suffixes.walk(cons, n, suf);
+        int   count = 0;
+        for (int i = 0; i < np; i++) {
+            for (int j = 0; j < ns; j++) {
+                int stem = n - pre[i] - suf[j];
+                if (stem > 0 && set.hasLength(stem)) out[count++] = pack(pre[i], suf[j]);
+            }
+        }
+        return count;
+    }
+
+    public static int pack(int prefixLength, int suffixLength) { return prefixLength << 16 | suffixLength; }
+
+    public static int prefixLength(int split) { return split >>> 16; }
+
+    public static int suffixLength(int split) { return split & 0xFFFF; }
+
+    // ── Trie ──────────────────────────────────────────────────────────────────
+
+    // Trie sur les codes RootKey ; un trie arriere est rempli et parcouru a l'envers
+    private static final class Trie {
+        private int[][]   next = new int[8][];
+        private boolean[] terminal = new boolean[8];
+        private int       size = 1;
+        final int         depth;
+        private final boolean reversed;
+
+        Trie(Collection<String> affixes, boolean reversed) {
+            this.reversed = reversed;
+            next[0] = new int[64];
+            int max = 0;
+            for (String affix : affixes) {
+                if (affix.isEmpty()) throw new IllegalArgumentException("Affixe vide.");
+                int node = 0;
+                for (int i = 0; i < affix.length(); i++) {
+                    char c = affix.charAt(reversed ? affix.length() - 1 - i : i);
+                    if (!Scheme.isConsonant(c)) throw new IllegalArgumentException("Affixe non consonantique : " + affix);
+                    int code = RootKey.code(c);
+                    if (next[node][code] == 0) next[node][code] = newNode();
+                    node = next[node][code];
+                }
+                terminal[node] = true;
+                max = Math.max(max, affix.length());
+            }
+            this.depth = max;
+        }
+
+        private int newNode() {
+            if (size == next.length) {
+                next     = Arrays.copyOf(next, size * 2);
+                terminal = Arrays.copyOf(terminal, size * 2);
+            }
+            next[size] = new int[64];
+            return size++;
+        }
+
+        // Longueurs des affixes presents au debut (ou a la fin) du mot, 0 compris
+        int walk(char[] cons, int n, int[] lengths) {
+            int count = 0, node = 0;
+            lengths[count++] = 0;
+            for (int i = 0; i < n && i < depth; i++) {
+                char c = cons[reversed ? n - 1 - i : i];
+                if (!Scheme.isConsonant(c)) break;
+                node = next[node][RootKey.code(c)];
+                if (node == 0) break;
+                if (terminal[node]) lengths[count++] = i + 1;
+            }
+            return count;
+        }
+    }
+}
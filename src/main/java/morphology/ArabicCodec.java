@@ -0,0 +1,76 @@
+package morphology;
+
+/**
+ * Codage d'un mot arabe sur un octet par caractere.
+ *
+ * Les chaines compactes de Java ne s'appliquent qu'au Latin-1 : un mot arabe
+ * occupe 2 octets par caractere, plus l'en-tete du String et de son tableau.
+ * Ici, tout caractere du bloc arabe U+0601..U+06FF (lettres, harakat, chiffres
+ * arabes-indiens, ponctuation) est code par son decalage depuis U+0600, sur un
+ * seul octet (1..255). Les autres caracteres sont echappes : octet 0 suivi du
+ * caractere sur 2 octets (gros-boutiste). Tout texte est donc codable, et le
+ * decodage restitue exactement la chaine d'origine.
+ *
+ * Utilise pour stocker les formes de surface des derives (AVLNode) dans un seul
+ * tableau d'octets par racine, sans objet par mot.
+ */
+public final class ArabicCodec {
+
+    private static final char BASE   = '\u0600';
+    private static final byte ESCAPE = 0;
+
+    private ArabicCodec() { }
+
+    /** Vrai si le caractere est code sur un seul octet. */
+    public static boolean isSingleByte(char c) {
+        return c > BASE && c <= '\u06FF';
+    }
+
+    /** Nombre d'octets necessaires pour coder la chaine. */
+    public static int encodedLength(CharSequence s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) n += isSingleByte(s.charAt(i)) ? 1 : 3;
+        return n;
+    }
+
+    /**
+     * Code la chaine dans dst a partir de off (taille : encodedLength(s)).
+     * @return la position qui suit le dernier octet ecrit
+     */
+    public static int encode(CharSequence s, byte[] dst, int off) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (isSingleByte(c)) {
+                dst[off++] = (byte) (c - BASE);
+            } else {
+                dst[off++] = ESCAPE;
+                dst[off++] = (byte) (c >>> 8);
+                dst[off++] = (byte) c;
+            }
+        }
+        return off;
+    }
+
+    /** Code une chaine dans un nouveau tableau. */
+    public static byte[] encode(CharSequence s) {
+        byte[] out = new byte[encodedLength(s)];
+        encode(s, out, 0);
+        return out;
+    }
+
+    /** Decode src[from..to) (produit par encode). */
+    public static String decode(byte[] src, int from, int to) {
+        char[] out = new char[to - from];
+        int    n   = 0;
+        for (int i = from; i < to; i++) {
+            byte b = src[i];
+            if (b != ESCAPE) {
+                out[n++] = (char) (BASE + (b & 0xFF));
+            } else {
+                out[n++] = (char) ((src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF));
+                i += 2;
+            }
+        }
+        return new String(out, 0, n);
+    }
+}
@@ -0,0 +1,245 @@
+package morphology;
+
+import java.nio.CharBuffer;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Normalisation de texte arabe par table precalculee.
+ *
+ * Une seule table de 65 536 caracteres donne, pour chaque caractere du plan
+ * de base, sa forme normalisee :
+ *   - une lettre consonantique (U+0621..U+064A), eventuellement repliee ;
+ *   - DROP : caractere ignore a l'interieur d'un mot (harakat, tatweel,
+ *     alif suscrit, signes coraniques, ZWNJ/ZWJ) ;
+ *   - SEPARATOR : tout le reste (espaces, ponctuation, autres ecritures) ;
+ *   - EXPANSION + k : ligature remplacee par plusieurs lettres (expansion k).
+ * La normalisation d'un caractere coute donc une lecture de tableau, sans
+ * cascade de tests d'intervalles.
+ *
+ * Les formes de presentation (U+FB50..U+FDFF, U+FE70..U+FEFF), frequentes
+ * dans le texte extrait des PDF, sont repliees a la construction par NFKC
+ * (java.text.Normalizer) puis par la table de base : ﻛ → ك, ﻻ → لا, etc.
+ * Les ligatures de plusieurs mots (ﷺ, ﷽) restent des separateurs.
+ *
+ * Replis facultatifs (drapeaux du constructeur) :
+ *   FOLD_ALEF        أ إ آ ٱ → ا
+ *   FOLD_YA          ى ی → ي
+ *   FOLD_TA_MARBUTA  ة → ه
+ * Sans repli (DEFAULT), les lettres sont conservees telles quelles : le
+ * resultat est celui de l'ancien filtre de Scheme.isConsonant, augmente des
+ * formes de presentation.
+ */
+public final class ArabicNormalizer {
+
+    public static final int FOLD_ALEF       = 1;
+    public static final int FOLD_YA         = 1 << 1;
+    public static final int FOLD_TA_MARBUTA = 1 << 2;
+    /** Tous les drapeaux de repli (valeurs persistees dans l'instantane et le journal). */
+    public static final int ALL_FLAGS       = FOLD_ALEF | FOLD_YA | FOLD_TA_MARBUTA;
+
+    /** Sans repli de lettres (utilise par Scheme.extractConsonants). */
+    public static final ArabicNormalizer DEFAULT = new ArabicNormalizer(0);
+    /** Tous les replis actifs. */
+    public static final ArabicNormalizer FOLDING = new ArabicNormalizer(FOLD_ALEF | FOLD_YA | FOLD_TA_MARBUTA);
+
+    /** Nombre maximal de lettres produites par un caractere (ligature ﷲ). */
+    public static final int MAX_EXPANSION = 4;
+
+    static final char DROP      = 0;
+    static final char EXPANSION = '\uE000'; // valeurs EXPANSION..SEPARATOR-1 : ligatures
+    static final char SEPARATOR = '\uFFFF';
+
+    private final int      flags;
+    private final char[]   table = new char[1 << 16];
+    private final String[] expansions;
+
+    public ArabicNormalizer(int flags) {
+        this.flags = flags;
+        for (int c = 0; c < table.length; c++) table[c] = base((char) c);
+        List<String> multi = new ArrayList<>();
+        fold(0xFB50, 0xFDFF, multi);
+        fold(0xFE70, 0xFEFF, multi);
+        this.expansions = multi.toArray(new String[0]);
+    }
+
+    /**
+     * Normaliseur pour ces drapeaux : DEFAULT ou FOLDING s'ils correspondent
+     * (pas de nouvelle table), sinon une nouvelle instance.
+     *
+     * @throws IllegalArgumentException si un drapeau est inconnu
+     */
+    public static ArabicNormalizer of(int flags) {
+        if ((flags & ~ALL_FLAGS) != 0) throw new IllegalArgumentException("Drapeaux de normalisation inconnus : " + flags);
+        if (flags == DEFAULT.flags) return DEFAULT;
+        if (flags == FOLDING.flags) return FOLDING;
+        return new ArabicNormalizer(flags);
+    }
+
+    /** Taille de tampon suffisante pour normaliser length caracteres mot par mot. */
+    public static int capacity(int length) {
+        return length * MAX_EXPANSION;
+    }
+
+    // ── Construction de la table ──────────────────────────────────────────────
+
+    // Forme normalisee d'un caractere hors formes de presentation
+    private char base(char c) {
+        if ((flags & FOLD_ALEF) != 0 && (c == '\u0623' || c == '\u0625' || c == '\u0622' || c == '\u0671'))
+            return '\u0627';
+        if ((flags & FOLD_YA) != 0 && (c == '\u0649' || c == '\u06CC')) return '\u064A';
+        if ((flags & FOLD_TA_MARBUTA) != 0 && c == '\u0629') return '\u0647';
+        if (Scheme.isConsonant(c)) return c;
+        if ((c >= '\u0640' && c <= '\u065F') || c == '\u0670'
+                || (c >= '\u06D6' && c <= '\u06ED' && c != '\u06DD' && c != '\u06DE' && c != '\u06E9')
+                || c == '\u200C' || c == '\u200D') return DROP;
+        return SEPARATOR;
+    }
+
+    // Formes de presentation : decomposition NFKC puis table de base
+    private void fold(int from, int to, List<String> multi) {
+        for (int c = from; c <= to; c++) {
+            String d = Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFKC);
+            if (d.length() == 1 && d.charAt(0) == c) continue; // non attribue : separateur
+            StringBuilder letters = new StringBuilder(d.length());
+            boolean separated = false;
+            for (int i = 0; i < d.length(); i++) {
+                char m = table[d.charAt(i)];
+                if (m == SEPARATOR) separated = true;
+                else if (m != DROP) letters.append(m);
+            }
+            if (letters.length() == 0)      table[c] = DROP;      // haraka isolee
+            else if (separated)             table[c] = SEPARATOR; // ligature de plusieurs mots
+            else if (letters.length() == 1) table[c] = letters.charAt(0);
+            else {
+                if (EXPANSION + multi.size() >= SEPARATOR) throw new IllegalStateException("Trop de ligatures.");
+                table[c] = (char) (EXPANSION + multi.size());
+                multi.add(letters.toString());
+            }
+        }
+    }
+
+    // ── Classes de caracteres ─────────────────────────────────────────────────
+
+    /** Forme normalisee brute (lettre, DROP, SEPARATOR ou EXPANSION + k). */
+    char map(char c) { return table[c]; }
+
+    /** Lettres produites par une valeur EXPANSION + k de la table. */
+    String expansion(char m) { return expansions[m - EXPANSION]; }
+
+    /** Lettre repliee (FOLD_*) ; tout autre caractere est rendu tel quel. */
+    char foldLetter(char c) {
+        char m = table[c];
+        return (char) (m - 1) < EXPANSION - 1 ? m : c;
+    }
+
+    /** Vrai si c donne au moins une lettre apres normalisation. */
+    public boolean isLetter(char c) {
+        char m = table[c];
+        return m != DROP && m != SEPARATOR;
+    }
+
+    /** Vrai si c fait partie d'un mot (lettre ou caractere ignore). */
+    public boolean isWordChar(char c) {
+        return table[c] != SEPARATOR;
+    }
+
+    public int getFlags() { return flags; }
+
+    // ── Normalisation d'un mot ────────────────────────────────────────────────
+
+    /**
+     * Ecrit les lettres normalisees de src[off..off+len) dans dst ; tout ce
+     * qui n'est pas une lettre (diacritiques, separateurs) est retire.
+     *
+     * @return le nombre de lettres ecrites, ou -1 si dst est trop petit
+     *         (capacity(len) suffit toujours)
+     */
+    public int normalize(CharSequence src, int off, int len, char[] dst) {
+        char[] t = table;
+        int n = 0;
+        for (int i = off, end = off + len; i < end; i++) {
+            char m = t[src.charAt(i)];
+            if ((char) (m - 1) < EXPANSION - 1) {      // lettre simple (cas courant)
+                if (n == dst.length) return -1;
+                dst[n++] = m;
+            } else if (m != DROP && m != SEPARATOR) {
+                String e = expansions[m - EXPANSION];
+                if (n + e.length() > dst.length) return -1;
+                e.getChars(0, e.length(), dst, n);
+                n += e.length();
+            }
+        }
+        return n;
+    }
+
+    /** Lettres normalisees d'un mot (chaine vide si aucune). */
+    public String normalize(CharSequence word) {
+        if (word == null) return "";
+        char[] buf = new char[capacity(word.length())];
+        return new String(buf, 0, normalize(word, 0, word.length(), buf));
+    }
+
+    // ── Normalisation d'un texte ──────────────────────────────────────────────
+
+    /**
+     * Filtrage d'un bloc de texte sans fusion des separateurs : chaque lettre
+     * est ecrite normalisee, chaque separateur devient un espace, les
+     * caracteres ignores sont retires. La sortie ne depend que du caractere
+     * lu, ce qui permet de traiter un bloc par morceaux independants (voir
+     * ConsonantFilter).
+     *
+     * @param dst tampon de sortie, au moins capacity(to - from) places a partir de at
+     * @return le nombre de caracteres ecrits
+     */
+    public int filter(char[] src, int from, int to, char[] dst, int at) {
+        char[] t = table;
+        int o = at;
+        for (int i = from; i < to; i++) {
+            char m = t[src[i]];
+            if ((char) (m - 1) < EXPANSION - 1) dst[o++] = m;
+            else if (m == SEPARATOR)           dst[o++] = ' ';
+            else if (m != DROP) {
+                String e = expansions[m - EXPANSION];
+                e.getChars(0, e.length(), dst, o);
+                o += e.length();
+            }
+        }
+        return o - at;
+    }
+
+    /**
+     * Normalise un texte entier de src vers dst : lettres normalisees,
+     * caracteres ignores retires, chaque suite de separateurs remplacee par
+     * un seul espace (aucun espace en tete de dst).
+     *
+     * Consomme src tant que dst a la place d'ecrire (au plus MAX_EXPANSION
+     * caracteres par caractere lu) ; les positions des deux tampons avancent.
+     *
+     * @return le nombre de caracteres ecrits dans dst
+     */
+    public int normalize(CharBuffer src, CharBuffer dst) {
+        char[] t = table;
+        int i = src.position(), limit = src.limit();
+        int o = dst.position(), end = dst.limit();
+        char last = o > 0 ? dst.get(o - 1) : ' ';
+        for (; i < limit && end - o >= MAX_EXPANSION; i++) {
+            char m = t[src.get(i)];
+            if ((char) (m - 1) < EXPANSION - 1) {
+                dst.put(o++, m);
+                last = m;
+            } else if (m == SEPARATOR) {
+                if (last != ' ') { dst.put(o++, ' '); last = ' '; }
+            } else if (m != DROP) {
+                String e = expansions[m - EXPANSION];
+                for (int k = 0; k < e.length(); k++) dst.put(o++, e.charAt(k));
+                last = e.charAt(e.length() - 1);
+            }
+        }
+        int written = o - dst.position();
+        src.position(i);
+        dst.position(o);
+        return written;
+    }
+}
@@ -0,0 +1,85 @@
+package morphology;
+
+/**
+ * Mot arabe court empaquete dans un long (6 bits par caractere).
+ *
+ * Les caracteres U+0621..U+065F (consonnes et harakat) sont codes par leur
+ * decalage depuis U+0620 (1..63), comme les lettres d'une RootKey. Jusqu'a
+ * MAX_LENGTH caracteres tiennent dans un long, le premier dans les bits de
+ * poids fort :
+ *
+ *   mot = c0 << 54 | c1 << 48 | ... | c9 , les positions inutilisees valant 0
+ *
+ * Comme pour RootKey, le codage est monotone (l'ordre des valeurs est l'ordre
+ * lexicographique des mots) et la longueur se deduit des groupes non nuls.
+ * NONE (-1, jamais produit : les 4 bits de poids fort sont toujours nuls)
+ * signale un mot trop long ou contenant un caractere hors de l'alphabet.
+ *
+ * Utilise comme cle des formes du lexique inverse (LexiconIndex) : 8 octets au
+ * lieu d'un String (en-tete + tableau UTF-16) par forme.
+ */
+public final class ArabicWord {
+
+    /** Valeur sentinelle : mot non empaquetable. */
+    public static final long NONE = -1L;
+
+    /** Nombre maximal de caracteres d'un mot empaquete. */
+    public static final int MAX_LENGTH = 10;
+
+    private static final char BASE = '\u0620';
+
+    private ArabicWord() { }
+
+    /** Vrai si le caractere fait partie de l'alphabet empaquetable. */
+    public static boolean isPackable(char c) {
+        return c > BASE && c <= '\u065F';
+    }
+
+    /**
+     * Empaquette src[0..n).
+     * @return le mot, ou NONE si n vaut 0, depasse MAX_LENGTH, ou si un
+     *         caractere est hors de l'alphabet
+     */
+    public static long pack(char[] src, int n) {
+        if (n <= 0 || n > MAX_LENGTH) return NONE;
+        long w = 0;
+        for (int i = 0; i < n; i++) {
+            char c = src[i];
+            if (!isPackable(c)) return NONE;
+            w |= (long) (c - BASE) << (54 - 6 * i);
+        }
+        return w;
+    }
+
+    /** Empaquette une chaine (voir pack). */
+    public static long of(CharSequence s) {
+        int n = s.length();
+        if (n == 0 || n > MAX_LENGTH) return NONE;
+        long w = 0;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (!isPackable(c)) return NONE;
+            w |= (long) (c - BASE) << (54 - 6 * i);
+        }
+        return w;
+    }
+
+    /** Nombre de caracteres du mot. */
+    public static int length(long w) {
+        if (w == 0) return 0;
+        return MAX_LENGTH - Long.numberOfTrailingZeros(w) / 6;
+    }
+
+    /** i-eme caractere du mot. */
+    public static char charAt(long w, int i) {
+        return (char) (BASE + ((w >>> (54 - 6 * i)) & 0x3F));
+    }
+
+    /** Forme textuelle du mot. */
+    public static String toString(long w) {
+        if (w == NONE) return null;
+        char[] out = new char[length(w)];
+        for (int i = 0; i < out.length; i++) out[i] = charAt(w, i);
+        return new String(out);
+    }
+}
@@ -0,0 +1,241 @@
+package morphology;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mode non interactif : traite un flux de mots ligne par ligne, sans menu ni
+ * affichage decoratif, pour l'utilisation dans des chaines de commandes shell.
+ *
+ *   java -cp out morphology.Main --batch [options] < mots.txt > resultats.tsv
+ *
+ * Options :
+ *   --validate        chaque ligne est une paire "mot<TAB>racine" (ou separee
+ *                     par un espace) validee par validateMorphology ; sinon
+ *                     chaque ligne est un mot analyse comme analyzeWord
+ *   --format F        tsv (defaut, avec ligne d'en-tete) ou ndjson (un objet
+ *                     JSON par ligne d'entree)
+ *   --in FICHIER      entree (defaut : stdin)
+ *   --out FICHIER     sortie (defaut : stdout)
+ *   --roots FICHIER   racines a charger en plus des racines par defaut (une par ligne)
+ *
+ * Lecture par un BufferedReader UTF-8, ecriture par blocs de 64 Ko : chaque
+ * ligne de resultat est composee dans un tampon de caracteres, et l'analyse
+ * utilise la forme sans allocation du moteur (analyze) avec des tampons reutilises.
+ */
+public final class BatchRunner {
+
+    private static final int BUFFER = 1 << 16;
+
+    private enum Format { TSV, NDJSON }
+
+    private final MorphologyEngine engine;
+    private final Format           format;
+    private final StringBuilder    pending = new StringBuilder(BUFFER + 1024);
+    private final Writer           writer;
+
+    // Tampons reutilises d'une ligne a l'autre
+    private char[] buf = new char[64];
+    private long[] out = new long[0];
+
+    private BatchRunner(MorphologyEngine engine, Format format, Writer writer) {
+        this.engine = engine;
+        this.format = format;
+        this.writer = writer;
+    }
+
+    /**
+     * Point d'entree du mode batch (arguments suivant --batch).
+     * @return le code de sortie du processus (0 = succes, 2 = arguments invalides)
+     */
+    public static int run(String[] args) {
+        boolean validate = false;
+        Format  format   = Format.TSV;
+        Path    in = null, outFile = null, roots = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--validate" -> validate = true;
+                    case "--format"   -> format   = parseFormat(value(args, ++i));
+                    case "--in"       -> in       = Paths.get(value(args, ++i));
+                    case "--out"      -> outFile  = Paths.get(value(args, ++i));
+                    case "--roots"    -> roots    = Paths.get(value(args, ++i));
+                    default -> throw new IllegalArgumentException("Option inconnue : " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage : --batch [--validate] [--format tsv|ndjson] "
+                             + "[--in FICHIER] [--out FICHIER] [--roots FICHIER]");
+            return 2;
+        }
+
+        MorphologyEngine engine = new MorphologyEngine();
+        engine.bulkLoadRoots(MorphologyEngine.DEFAULT_ROOTS);
+        try (InputStream  input  = in      == null ? System.in  : Files.newInputStream(in);
+             OutputStream output = outFile == null ? System.out : Files.newOutputStream(outFile)) {
+            if (roots != null) engine.bulkLoadRoots(Files.readAllLines(roots, StandardCharsets.UTF_8));
+            Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            BatchRunner runner = new BatchRunner(engine, format, writer);
+            if (validate) runner.validate(new BufferedReader(reader, BUFFER));
+            else          runner.analyze(new BufferedReader(reader, BUFFER));
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Erreur d'entree/sortie : " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Valeur manquante pour " + args[i - 1]);
+        return args[i];
+    }
+
+    private static Format parseFormat(String name) {
+        return switch (name) {
+            case "tsv"    -> Format.TSV;
+            case "ndjson" -> Format.NDJSON;
+            default -> throw new IllegalArgumentException("Format inconnu : " + name);
+        };
+    }
+
+    // ── Analyse ───────────────────────────────────────────────────────────────
+
+    // Un mot par ligne ; en TSV une ligne par correspondance (ligne vide de
+    // resultats si aucune), en NDJSON un objet par mot
+    private void analyze(BufferedReader in) throws IOException {
+        if (format == Format.TSV) pending.append("word\troot\tscheme\tcategory\tindexed\n");
+        String line;
+        while ((line = in.readLine()) != null) {
+            String word = line.trim();
+            if (word.isEmpty()) continue;
+            CompiledSchemeSet set = engine.getCompiledSchemes();
+            int need = ArabicNormalizer.capacity(word.length());
+            if (buf.length < need)          buf = new char[Math.max(need, buf.length * 2)];
+            if (out.length < set.size())    out = new long[set.size()];
+            int n = engine.analyze(word, 0, word.length(), buf, out);
+
+            if (format == Format.TSV) {
+                if (n == 0) pending.append(word).append("\t\t\t\t\n");
+                for (int i = 0; i < n; i++) {
+                    int    key    = CompiledSchemeSet.rootOf(out[i]);
+                    Scheme scheme = set.get(CompiledSchemeSet.schemeOf(out[i]));
+                    pending.append(word).append('\t');
+                    appendRoot(key);
+                    pending.append('\t').append(scheme.getName())
+                           .append('\t').append(scheme.getCategory())
+                           .append('\t').append(engine.containsRoot(key)).append('\n');
+                }
+            } else {
+                pending.append("{\"word\":");
+                appendJson(word);
+                pending.append(",\"matches\":[");
+                for (int i = 0; i < n; i++) {
+                    int    key    = CompiledSchemeSet.rootOf(out[i]);
+                    Scheme scheme = set.get(CompiledSchemeSet.schemeOf(out[i]));
+                    if (i > 0) pending.append(',');
+                    pending.append("{\"root\":\"");
+                    appendRoot(key);
+                    pending.append("\",\"scheme\":");
+                    appendJson(scheme.getName());
+                    pending.append(",\"category\":");
+                    appendJson(scheme.getCategory());
+                    pending.append(",\"indexed\":").append(engine.containsRoot(key)).append('}');
+                }
+                pending.append("]}\n");
+            }
+            flushIfFull();
+        }
+        flush();
+    }
+
+    // ── Validation ────────────────────────────────────────────────────────────
+
+    // Une paire "mot racine" par ligne
+    private void validate(BufferedReader in) throws IOException {
+        if (format == Format.TSV) pending.append("word\troot\tvalid\tscheme\n");
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] pair = split(line.trim());
+            if (pair == null) continue;
+            ValidationResult r = engine.validateMorphology(pair[0], pair[1]);
+            String scheme = r.isValid() ? r.getScheme().getName() : "";
+            if (format == Format.TSV) {
+                pending.append(pair[0]).append('\t').append(pair[1]).append('\t')
+                       .append(r.isValid()).append('\t').append(scheme).append('\n');
+            } else {
+                pending.append("{\"word\":");
+                appendJson(pair[0]);
+                pending.append(",\"root\":");
+                appendJson(pair[1]);
+                pending.append(",\"valid\":").append(r.isValid()).append(",\"scheme\":");
+                if (r.isValid()) appendJson(scheme);
+                else             pending.append("null");
+                pending.append("}\n");
+            }
+            flushIfFull();
+        }
+        flush();
+    }
+
+    // Mot et racine separes par une tabulation, ou a defaut par un espace
+    private static String[] split(String line) {
+        if (line.isEmpty()) return null;
+        int at = line.indexOf('\t');
+        if (at < 0) at = line.indexOf(' ');
+        if (at < 0) return new String[]{line, ""};
+        return new String[]{line.substring(0, at).trim(), line.substring(at + 1).trim()};
+    }
+
+    // ── Ecriture ──────────────────────────────────────────────────────────────
+
+    private void appendRoot(int key) {
+        pending.append(RootKey.letterAt(key, 0)).append(RootKey.letterAt(key, 1)).append(RootKey.letterAt(key, 2));
+    }
+
+    // Chaine JSON (guillemets, barre oblique inverse et caracteres de controle echappes)
+    private void appendJson(String s) {
+        pending.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"'  -> pending.append("\\\"");
+                case '\\' -> pending.append("\\\\");
+                case '\n' -> pending.append("\\n");
+                case '\r' -> pending.append("\\r");
+                case '\t' -> pending.append("\\t");
+                default -> {
+                    if (c < 0x20) pending.append(String.format("\\u%04x", (int) c));
+                    else          pending.append(c);
+                }
+            }
+        }
+        pending.append('"');
+    }
+
+    private void flushIfFull() throws IOException {
+        if (pending.length() >= BUFFER) {
+            writer.append(pending);
+            pending.setLength(0);
+        }
+    }
+
+    private void flush() throws IOException {
+        writer.append(pending);
+        pending.setLength(0);
+        writer.flush();
+    }
+}
@@ -85,11 +85,11 @@ public class CLI {
                     AVLNode node = engine.searchRoot(r);
                     if (node == null) System.out.println("  [X] Introuvable : " + engine.cleanRoot(r));
                     else {
-                        System.out.println("  [OK] Racine : " + node.root);
-                        System.out.println("    Derives valides : " + node.derivedWords.size());
-                        System.out.println("    Frequence       : " + node.frequency);
-                        if (!node.derivedWords.isEmpty())
-                            System.out.println("    Mots            : " + node.derivedWords);
+                        System.out.println("  [OK] Racine : " + node.getRootWord());
+                        System.out.println("    Derives valides : " + node.getDerivedCount());
+                        System.out.println("    Frequence       : " + node.getFrequency());
+                        if (node.getDerivedCount() > 0)
+                            System.out.println("    Mots            : " + engine.getDerivedWords(node));
                     }
                 }
                 case "e" -> {
@@ -166,7 +166,7 @@ public class CLI {
                     engine.displayDerivatives(root, d);
                     if (readLine("  Enregistrer ces derives ? (o/n) : ").trim().equalsIgnoreCase("o")) {
                         engine.insertRoot(root);
-                        for (String w : d.values()) engine.getRootTree().addDerivedWord(engine.cleanRoot(root), w);
+                        for (String schemeName : d.keySet()) engine.recordDerivative(root, schemeName);
                         System.out.println("  [OK] Enregistres.");
                     }
                 }
@@ -232,32 +232,37 @@ public class CLI {
         System.out.println("  Arbre AVL des racines :");
         System.out.println("    Racines indexees : " + engine.getRootCount());
         System.out.println("    Complexite       : O(log n)");
+        DerivativeArena arena = engine.getDerivativeArena();
+        if (arena != null) {
+            System.out.printf ("    Derives hors tas : %d octets utiles / %d reserves (%d perdus)%n",
+                    arena.getLiveBytes(), arena.getReservedBytes(), arena.getGarbageBytes());
+        }
         System.out.println();
         System.out.println("  Table de hachage :");
         System.out.println("    Schemes          : " + engine.getSchemeCount());
         System.out.println("    Capacite buckets : " + engine.getSchemeTable().getCapacity());
         System.out.printf ("    Facteur charge   : %.1f%%%n",
                 (double) engine.getSchemeCount() / engine.getSchemeTable().getCapacity() * 100);
+        HashTableStats hs = engine.getSchemeTableStats();
+        System.out.println("    Chaine maximale  : " + hs.getMaxChainLength());
+        System.out.printf ("    Sondages moyens  : %.2f%n", hs.getExpectedProbes());
         System.out.println("    Complexite       : O(1) amorti");
         System.out.println();
-        List<String> roots = engine.getAllRoots();
+        System.out.println("  Fonctions de hachage (catalogue actuel) :");
+        HashTableStats.displayComparison(engine.getSchemeTable().getAllKeys());
+        System.out.println();
         System.out.println("  Racines avec derives valides :");
-        roots.stream()
-             .map(r -> engine.getRootTree().search(r))
-             .filter(Objects::nonNull)
-             .filter(n -> !n.derivedWords.isEmpty())
-             .sorted((a, b) -> b.derivedWords.size() - a.derivedWords.size())
+        engine.roots()
+             .filter(n -> n.getDerivedCount() > 0)
+             .sorted((a, b) -> b.getDerivedCount() - a.getDerivedCount())
              .limit(5)
-             .forEach(n -> System.out.printf("    - %-8s : %d derive(s)%n", n.root, n.derivedWords.size()));
+             .forEach(n -> System.out.printf("    - %-8s : %d derive(s)%n", n.getRootWord(), n.getDerivedCount()));
         System.out.println();
     }
 
     private void loadDefaultRoots() {
         System.out.println("  Chargement des racines par defaut...");
-        engine.loadRootsFromList(Arrays.asList(
-            "كتب","قرأ","علم","فهم","درس","فتح","نصر","حمل","جلس","خرج",
-            "دخل","قول","ضرب","سمع","رأى","أكل","شرب","نظر","حكم","صلح"
-        ));
+        engine.loadRootsFromList(MorphologyEngine.DEFAULT_ROOTS);
         System.out.println("  Systeme pret !\n");
     }
 
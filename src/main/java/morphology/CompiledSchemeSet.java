@@ -0,0 +1,103 @@
+package morphology;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ensemble immuable des schemes compiles, utilise par la boucle interne du moteur.
+ *
+ * Contient un tableau fige des schemes (dans l'ordre de la table de hachage) et
+ * l'index de pre-filtrage associe. Le moteur le reconstruit uniquement lorsque
+ * la table change (ajout, mise a jour ou suppression d'un scheme) : la generation
+ * et l'analyse parcourent donc un simple tableau, sans copie de liste par appel.
+ *
+ * L'index de pre-filtrage reconnait les mots normalises par le normaliseur du
+ * moteur : les lettres fixes des schemes y sont repliees de la meme facon
+ * (voir Scheme.normalized). Les schemes rendus restent ceux du catalogue.
+ *
+ * Un index par nom accompagne le tableau : adressage ouvert (OpenSchemeHashTable)
+ * ou, pour un catalogue fige, hachage parfait minimal (FrozenSchemeTable). La
+ * recherche d'un scheme par son nom est sans verrou, sans allocation et sans
+ * parcours de liste chainee.
+ *
+ * Les correspondances de l'API sans allocation (match) sont empaquetees dans un
+ * long : position du scheme dans cet ensemble (32 bits forts) et cle RootKey de
+ * la racine extraite (32 bits faibles).
+ */
+public final class CompiledSchemeSet {
+
+    private final Scheme[]     schemes;
+    private final SchemeIndex  index;
+    private final List<Scheme> view;
+    private final SchemeLookup byName;
+    private final long         lengths;  // bit n : au moins un scheme de longueur n
+
+    public CompiledSchemeSet(List<Scheme> schemes) {
+        this(schemes, false);
+    }
+
+    /**
+     * @param frozen true pour indexer les noms par hachage parfait minimal
+     *               (noms distincts obligatoires)
+     */
+    public CompiledSchemeSet(List<Scheme> schemes, boolean frozen) {
+        this(schemes, frozen, ArabicNormalizer.DEFAULT);
+    }
+
+    /**
+     * @param frozen     true pour indexer les noms par hachage parfait minimal
+     * @param normalizer normaliseur des mots analyses (replis des lettres fixes)
+     */
+    public CompiledSchemeSet(List<Scheme> schemes, boolean frozen, ArabicNormalizer normalizer) {
+        this.schemes = schemes.toArray(new Scheme[0]);
+        this.index   = new SchemeIndex(this.schemes, normalizer);
+        this.view    = Collections.unmodifiableList(Arrays.asList(this.schemes));
+        this.byName  = frozen ? new FrozenSchemeTable(view) : openIndex(view);
+        long mask = 0;
+        for (Scheme s : this.schemes) if (s.length() < 64) mask |= 1L << s.length();
+        this.lengths = mask;
+    }
+
+    private static SchemeLookup openIndex(List<Scheme> schemes) {
+        OpenSchemeHashTable table = new OpenSchemeHashTable(schemes.size());
+        table.putAll(schemes);
+        return table;
+    }
+
+    /** Vrai si au moins un scheme produit des mots de n consonnes (pre-filtre de longueur). */
+    public boolean hasLength(int n) { return n > 0 && n < 64 && (lengths & 1L << n) != 0; }
+
+    /** Nombre de schemes compiles. */
+    public int size()              { return schemes.length; }
+
+    /** Scheme a la position i (0 <= i < size()). */
+    public Scheme get(int i)       { return schemes[i]; }
+
+    /** Scheme de ce nom, ou null si absent. */
+    public Scheme get(String name) { return byName.get(name); }
+
+    /** Indique si l'index par nom est un hachage parfait fige. */
+    public boolean isFrozen()      { return byName instanceof FrozenSchemeTable; }
+
+    /** Vue non modifiable sur les schemes, sans copie. */
+    public List<Scheme> asList()   { return view; }
+
+    /** Schemes compatibles avec les consonnes d'un mot (voir SchemeIndex). */
+    public List<Scheme> candidates(char[] wordCons) { return index.candidates(wordCons); }
+
+    /** Correspondances empaquetees pour wordCons[0..n) (voir SchemeIndex.match). */
+    public int match(char[] wordCons, int n, long[] out) { return index.match(wordCons, n, out); }
+
+    // ── Correspondances empaquetees ───────────────────────────────────────────
+
+    public static long pack(int schemePos, int rootKey) {
+        return (long) schemePos << 32 | (rootKey & 0xFFFFFFFFL);
+    }
+
+    /** Position du scheme dans l'ensemble compile. */
+    public static int schemeOf(long match) { return (int) (match >>> 32); }
+
+    /** Cle RootKey de la racine extraite. */
+    public static int rootOf(long match)   { return (int) match; }
+}
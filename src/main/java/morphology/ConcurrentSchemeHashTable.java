@@ -0,0 +1,327 @@
+package morphology;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Variante concurrente de SchemeHashTable (meme hachage, memes buckets,
+ * strategie de hachage interchangeable de la meme facon).
+ *
+ *   - get    : sans verrou. Les chaines sont immuables (copie du prefixe a la
+ *              suppression) et publiees par ecriture release dans le bucket.
+ *   - put / delete : un verrou par bande de buckets (STRIPES verrous). Les
+ *              capacites etant des multiples de STRIPES, une cle garde la meme
+ *              bande quelle que soit la taille de la table.
+ *   - redimensionnement incremental : au depassement du facteur de charge, une
+ *              table deux fois plus grande est allouee, puis chaque ecriture
+ *              migre quelques buckets (MIGRATE_STEP). Un bucket migre est
+ *              remplace par un maillon de renvoi (Forward) vers la nouvelle
+ *              table : un lecteur qui le rencontre poursuit simplement sa
+ *              recherche dans celle-ci. Aucune operation ne re-hache toute
+ *              la table d'un coup.
+ *
+ * La migration d'un bucket reproduit exactement le resultat de
+ * SchemeHashTable.resize (reinsertion en tete, donc ordre inverse) : les deux
+ * tables enumerent les schemes dans le meme ordre.
+ *
+ * Les enumerations (getAllSchemes, display...) terminent d'abord une migration
+ * en cours ; elles restent coherentes par bucket, pas globalement.
+ */
+public class ConcurrentSchemeHashTable implements SchemeStore {
+
+    private static final int    INITIAL_CAPACITY = 16;
+    private static final double LOAD_FACTOR      = 0.75;
+    private static final int    STRIPES          = 16;  // divise toute capacite
+    private static final int    MIGRATE_STEP     = 4;   // buckets migres par ecriture
+
+    private static final VarHandle BUCKETS = MethodHandles.arrayElementVarHandle(Entry[].class);
+
+    // Maillon immuable (sauf la valeur) d'une chaine
+    private static class Entry {
+        final String    key;
+        final int       hash;
+        volatile Scheme value;
+        final Entry     next;
+
+        Entry(String key, int hash, Scheme value, Entry next) {
+            this.key   = key;
+            this.hash  = hash;
+            this.value = value;
+            this.next  = next;
+        }
+    }
+
+    // Bucket deja migre : la chaine se trouve dans la table suivante
+    private static final class Forward extends Entry {
+        final Entry[] table;
+
+        Forward(Entry[] table) {
+            super(null, 0, null, null);
+            this.table = table;
+        }
+    }
+
+    private volatile Entry[] table;
+    private volatile Entry[] nextTable;     // non null pendant une migration
+    private int              migrated;      // buckets migres (sous resizeLock)
+
+    private final SchemeHash      hashFunction;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantLock   resizeLock = new ReentrantLock();
+    private final AtomicInteger   size = new AtomicInteger();
+
+    public ConcurrentSchemeHashTable() {
+        this(SchemeHash.POLYNOMIAL);
+    }
+
+    public ConcurrentSchemeHashTable(SchemeHash hashFunction) {
+        this.hashFunction = hashFunction;
+        this.table = new Entry[INITIAL_CAPACITY];
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+    }
+
+    // --- Fonction de hachage -----------------------------------------------------
+
+    // Meme hachage positif que SchemeHashTable, avant reduction modulo la capacite
+    private int hash(String key) {
+        return hashFunction.hash(key) & 0x7FFFFFFF;
+    }
+
+    private static Entry bucket(Entry[] t, int i) {
+        return (Entry) BUCKETS.getAcquire(t, i);
+    }
+
+    private static void setBucket(Entry[] t, int i, Entry e) {
+        BUCKETS.setRelease(t, i, e);
+    }
+
+    // --- Operations CRUD ---------------------------------------------------------
+
+    /**
+     * Recupere un scheme par sa cle, sans verrou.
+     * @return le Scheme ou null si absent
+     */
+    @Override
+    public Scheme get(String key) {
+        int h = hash(key);
+        Entry[] t = table;
+        Entry cur = bucket(t, h & (t.length - 1));
+        while (cur != null) {
+            if (cur instanceof Forward f) {
+                t   = f.table;
+                cur = bucket(t, h & (t.length - 1));
+                continue;
+            }
+            if (cur.hash == h && cur.key.equals(key)) return cur.value;
+            cur = cur.next;
+        }
+        return null;
+    }
+
+    /**
+     * Insere ou met a jour un scheme dans la table.
+     */
+    @Override
+    public void put(String key, Scheme scheme) {
+        int h = hash(key);
+        if (nextTable == null && size.get() >= LOAD_FACTOR * table.length) startResize();
+
+        ReentrantLock stripe = stripes[h & (STRIPES - 1)];
+        stripe.lock();
+        try {
+            Entry[] t = writableTable(h);
+            int   idx  = h & (t.length - 1);
+            Entry head = bucket(t, idx);
+            for (Entry cur = head; cur != null; cur = cur.next) {
+                if (cur.hash == h && cur.key.equals(key)) {
+                    cur.value = scheme; // mise a jour
+                    return;
+                }
+            }
+            // Insertion en tete de liste
+            setBucket(t, idx, new Entry(key, h, scheme, head));
+            size.incrementAndGet();
+        } finally {
+            stripe.unlock();
+            helpResize();
+        }
+    }
+
+    /**
+     * Supprime un scheme de la table.
+     * @return true si supprime, false si absent
+     */
+    @Override
+    public boolean delete(String key) {
+        int h = hash(key);
+        ReentrantLock stripe = stripes[h & (STRIPES - 1)];
+        stripe.lock();
+        try {
+            Entry[] t = writableTable(h);
+            int   idx  = h & (t.length - 1);
+            Entry head = bucket(t, idx);
+            for (Entry cur = head; cur != null; cur = cur.next) {
+                if (cur.hash == h && cur.key.equals(key)) {
+                    setBucket(t, idx, copyWithout(head, cur));
+                    size.decrementAndGet();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            stripe.unlock();
+            helpResize();
+        }
+    }
+
+    // Chaine privee de 'removed' : le prefixe est recopie, la suite partagee
+    private static Entry copyWithout(Entry head, Entry removed) {
+        if (head == removed) return removed.next;
+        return new Entry(head.key, head.hash, head.value, copyWithout(head.next, removed));
+    }
+
+    /**
+     * Table dans laquelle ecrire la cle de hachage h, en suivant les renvois.
+     * Si une migration est en cours et que le bucket n'est pas encore migre,
+     * il l'est immediatement. A appeler sous le verrou de bande de h : aucun
+     * autre thread ne peut alors modifier ou migrer ce bucket.
+     */
+    private Entry[] writableTable(int h) {
+        Entry[] t = table;
+        while (true) {
+            int   idx  = h & (t.length - 1);
+            Entry head = bucket(t, idx);
+            if (head instanceof Forward f) { t = f.table; continue; }
+            Entry[] next = nextTable;
+            if (next == null || next == t) return t;
+            transfer(t, idx, next);
+            t = next;
+        }
+    }
+
+    /**
+     * Liste de tous les schemes stockes (termine une migration en cours).
+     */
+    @Override
+    public List<Scheme> getAllSchemes() {
+        List<Scheme> list = new ArrayList<>();
+        for (Entry bucket : settledTable()) {
+            for (Entry cur = bucket; cur != null; cur = cur.next) list.add(cur.value);
+        }
+        return list;
+    }
+
+    /**
+     * Liste de toutes les cles (termine une migration en cours).
+     */
+    @Override
+    public List<String> getAllKeys() {
+        List<String> keys = new ArrayList<>();
+        for (Entry bucket : settledTable()) {
+            for (Entry cur = bucket; cur != null; cur = cur.next) keys.add(cur.key);
+        }
+        return keys;
+    }
+
+    // --- Redimensionnement incremental -------------------------------------------
+
+    private void startResize() {
+        resizeLock.lock();
+        try {
+            Entry[] t = table;
+            if (nextTable == null && size.get() >= LOAD_FACTOR * t.length) {
+                migrated  = 0;
+                nextTable = new Entry[t.length * 2];
+            }
+        } finally {
+            resizeLock.unlock();
+        }
+    }
+
+    // Migre quelques buckets si aucun autre thread ne s'en charge deja
+    private void helpResize() {
+        if (nextTable == null || !resizeLock.tryLock()) return;
+        try {
+            migrate(MIGRATE_STEP);
+        } finally {
+            resizeLock.unlock();
+        }
+    }
+
+    // Migre au plus 'steps' buckets ; publie la nouvelle table a la fin (sous resizeLock)
+    private void migrate(int steps) {
+        Entry[] next = nextTable;
+        if (next == null) return;
+        Entry[] old = table;
+        while (steps-- > 0 && migrated < old.length) {
+            int i = migrated++;
+            ReentrantLock stripe = stripes[i & (STRIPES - 1)];
+            stripe.lock();
+            try {
+                if (!(bucket(old, i) instanceof Forward)) transfer(old, i, next);
+            } finally {
+                stripe.unlock();
+            }
+        }
+        if (migrated == old.length) {
+            table     = next;
+            nextTable = null;
+        }
+    }
+
+    /**
+     * Deplace le bucket i de old vers next (indices i et i + old.length),
+     * puis le remplace par un renvoi. Sous le verrou de bande de i.
+     */
+    private static void transfer(Entry[] old, int i, Entry[] next) {
+        Entry lo = null, hi = null;
+        int bit = old.length;
+        for (Entry cur = bucket(old, i); cur != null; cur = cur.next) {
+            if ((cur.hash & bit) == 0) lo = new Entry(cur.key, cur.hash, cur.value, lo);
+            else                       hi = new Entry(cur.key, cur.hash, cur.value, hi);
+        }
+        setBucket(next, i, lo);
+        setBucket(next, i + bit, hi);
+        setBucket(old, i, new Forward(next));
+    }
+
+    // Table sans migration en cours
+    private Entry[] settledTable() {
+        if (nextTable != null) {
+            resizeLock.lock();
+            try {
+                migrate(Integer.MAX_VALUE);
+            } finally {
+                resizeLock.unlock();
+            }
+        }
+        return table;
+    }
+
+    // --- Statistiques ------------------------------------------------------------
+
+    @Override
+    public int getSize() { return size.get(); }
+
+    @Override
+    public int getCapacity() {
+        Entry[] next = nextTable;
+        return next != null ? next.length : table.length;
+    }
+
+    @Override
+    public int getBucketSize(int idx) {
+        Entry[] t = settledTable();
+        if (idx < 0 || idx >= t.length) return 0;
+        int count = 0;
+        for (Entry cur = bucket(t, idx); cur != null; cur = cur.next) count++;
+        return count;
+    }
+
+    @Override
+    public int bucketIndexOf(String key) { return hash(key) & (getCapacity() - 1); }
+}
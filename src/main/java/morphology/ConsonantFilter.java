@@ -0,0 +1,107 @@
+package morphology;
+
+import java.nio.CharBuffer;
+
+/**
+ * Filtrage des consonnes sur de gros blocs de texte (corpus, fichiers entiers).
+ *
+ * Meme classification que ArabicNormalizer.DEFAULT.filter : les lettres sont
+ * conservees (formes de presentation repliees), harakat et tatweel retires,
+ * tout autre caractere remplace par un espace. Les mots restent donc separes
+ * et la sortie est directement decoupable sur les espaces.
+ *
+ * Implementations :
+ *   - scalar()  → une lecture de table par caractere (ArabicNormalizer)
+ *   - best()    → morphology.vector.VectorConsonantFilter si le module
+ *                 jdk.incubator.vector est present a l'execution (et que la
+ *                 classe a ete compilee), sinon scalar()
+ *
+ * La classe vectorielle est chargee par reflexion : le reste du moteur se
+ * compile et s'execute sans le module incubateur. -Dmorphology.vector=false
+ * force le chemin scalaire.
+ */
+public abstract class ConsonantFilter {
+
+    /**
+     * Filtre src[from..to) vers dst a partir de at.
+     *
+     * @param dst tampon de sortie, au moins ArabicNormalizer.capacity(to - from)
+     *            places a partir de at
+     * @return le nombre de caracteres ecrits
+     */
+    public abstract int filter(char[] src, int from, int to, char[] dst, int at);
+
+    /** Nom de l'implementation (pour les mesures). */
+    public abstract String getName();
+
+    // Taille des blocs copies lorsque les tampons n'exposent pas de tableau
+    private static final int BLOCK = 1 << 13;
+
+    /**
+     * Filtre le contenu restant de src vers dst, tant que dst a la place
+     * d'ecrire ; les positions des deux tampons avancent.
+     *
+     * @return le nombre de caracteres ecrits dans dst
+     */
+    public int filter(CharBuffer src, CharBuffer dst) {
+        int    written = 0;
+        char[] in = null, out = null;
+        while (src.hasRemaining()) {
+            int n = Math.min(src.remaining(), dst.remaining() / ArabicNormalizer.MAX_EXPANSION);
+            if (n == 0) break;
+            int w;
+            if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+                int from = src.arrayOffset() + src.position();
+                w = filter(src.array(), from, from + n, dst.array(), dst.arrayOffset() + dst.position());
+                src.position(src.position() + n);
+                dst.position(dst.position() + w);
+            } else {
+                if (in == null) {
+                    in  = new char[BLOCK];
+                    out = new char[ArabicNormalizer.capacity(BLOCK)];
+                }
+                n = Math.min(n, BLOCK);
+                src.get(in, 0, n);
+                w = filter(in, 0, n, out, 0);
+                dst.put(out, 0, w);
+            }
+            written += w;
+        }
+        return written;
+    }
+
+    /** Chemin scalaire, toujours disponible. */
+    public static ConsonantFilter scalar() {
+        return Holder.SCALAR;
+    }
+
+    /** Chemin vectoriel s'il est disponible, sinon scalaire. */
+    public static ConsonantFilter best() {
+        return Holder.BEST;
+    }
+
+    // Instances partagees (resolues une seule fois, au premier appel)
+    private static final class Holder {
+        static final ConsonantFilter SCALAR = new ConsonantFilter() {
+            @Override
+            public int filter(char[] src, int from, int to, char[] dst, int at) {
+                return ArabicNormalizer.DEFAULT.filter(src, from, to, dst, at);
+            }
+
+            @Override
+            public String getName() { return "scalaire"; }
+        };
+
+        static final ConsonantFilter BEST = load();
+
+        private static ConsonantFilter load() {
+            if (!Boolean.parseBoolean(System.getProperty("morphology.vector", "true"))) return SCALAR;
+            try {
+                Class<?> c = Class.forName("morphology.vector.VectorConsonantFilter");
+                return (ConsonantFilter) c.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return SCALAR; // classe non compilee ou module jdk.incubator.vector absent
+            }
+        }
+    }
+}
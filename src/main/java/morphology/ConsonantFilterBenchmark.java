@@ -0,0 +1,90 @@
+package morphology;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mesure du filtrage des consonnes : chemin scalaire contre ConsonantFilter.best().
+ *
+ *   java -cp out morphology.ConsonantFilterBenchmark [millions de caracteres] [iterations]
+ *   java --add-modules jdk.incubator.vector -cp out morphology.ConsonantFilterBenchmark
+ *
+ * Le texte est fabrique a partir des derives des racines par defaut : chaque
+ * lettre porte une haraka (fatha, damma, kasra, soukoun, parfois chadda) comme
+ * dans un texte entierement vocalise, les mots sont separes par des espaces,
+ * une ponctuation arabe de temps en temps et des fins de ligne. La meme
+ * mesure est faite sur le texte non vocalise. Les deux sorties sont comparees
+ * avant toute mesure.
+ */
+public final class ConsonantFilterBenchmark {
+
+    private static final char[] HARAKAT = {'\u064E', '\u064F', '\u0650', '\u0652'};
+    private static final char   SHADDA  = '\u0651';
+    private static final char[] PUNCT   = {'\u060C', '.', '\u061F', '\n'};
+
+    private ConsonantFilterBenchmark() { }
+
+    public static void main(String[] args) {
+        int chars      = (args.length > 0 ? Integer.parseInt(args[0]) : 8) * 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        ConsonantFilter scalar = ConsonantFilter.scalar();
+        ConsonantFilter best   = ConsonantFilter.best();
+        System.out.println("  Chemin optimise : " + best.getName());
+
+        for (boolean vocalized : new boolean[]{true, false}) {
+            char[] text = text(chars, vocalized, new Random(42));
+            char[] a = new char[ArabicNormalizer.capacity(text.length)];
+            char[] b = new char[a.length];
+            int na = scalar.filter(text, 0, text.length, a, 0);
+            int nb = best.filter(text, 0, text.length, b, 0);
+            if (na != nb || !Arrays.equals(a, 0, na, b, 0, nb))
+                throw new IllegalStateException("Sorties differentes entre " + scalar.getName() + " et " + best.getName());
+
+            System.out.printf("  Texte %s : %,d caracteres → %,d%n",
+                    vocalized ? "vocalise" : "non vocalise", text.length, na);
+            double s = measure(scalar, text, a, iterations);
+            double v = measure(best, text, b, iterations);
+            System.out.printf("    %-24s %8.1f Mcar/s%n", scalar.getName(), s);
+            System.out.printf("    %-24s %8.1f Mcar/s   (x%.2f)%n", best.getName(), v, v / s);
+        }
+    }
+
+    // Meilleur debit (millions de caracteres par seconde) apres echauffement
+    private static double measure(ConsonantFilter f, char[] text, char[] out, int iterations) {
+        for (int i = 0; i < 5; i++) f.filter(text, 0, text.length, out, 0);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < iterations; i++) {
+            long t = System.nanoTime();
+            f.filter(text, 0, text.length, out, 0);
+            best = Math.min(best, System.nanoTime() - t);
+        }
+        return text.length * 1e3 / best;
+    }
+
+    // Texte synthetique a partir des derives de toutes les racines par defaut
+    private static char[] text(int size, boolean vocalized, Random random) {
+        MorphologyEngine engine = new MorphologyEngine();
+        List<String> words = new ArrayList<>();
+        for (String root : MorphologyEngine.DEFAULT_ROOTS) words.addAll(engine.generateAllDerivatives(root).values());
+
+        StringBuilder sb = new StringBuilder(size + 64);
+        while (sb.length() < size) {
+            String word = words.get(random.nextInt(words.size()));
+            for (int i = 0; i < word.length(); i++) {
+                sb.append(word.charAt(i));
+                if (!vocalized) continue;
+                if (random.nextInt(8) == 0) sb.append(SHADDA);
+                sb.append(HARAKAT[random.nextInt(HARAKAT.length)]);
+            }
+            if (random.nextInt(12) == 0) sb.append(PUNCT[random.nextInt(PUNCT.length)]);
+            sb.append(' ');
+        }
+        sb.setLength(size);
+        char[] text = new char[size];
+        sb.getChars(0, size, text, 0);
+        return text;
+    }
+}
@@ -0,0 +1,348 @@
+package morphology;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Analyse parallele d'un corpus de texte arabe (UTF-8) de grande taille.
+ *
+ *   1. Decoupage : le fichier est divise en tranches d'environ chunkSize
+ *      octets. Chaque frontiere est avancee jusqu'au debut d'un caractere qui
+ *      n'appartient pas a un mot : aucun caractere ni aucun mot n'est coupe.
+ *   2. Analyse : chaque tranche est projetee en memoire (FileChannel.map) par
+ *      une tache fork-join, decodee a la volee et decoupee en mots arabes
+ *      (classes de caracteres de ArabicNormalizer : lettres et formes de
+ *      presentation, plus tatweel et harakat ignores a l'analyse). Chaque
+ *      mot passe par la forme sans allocation de analyzeWord (lettres
+ *      normalisees par le moteur + CompiledSchemeSet.match).
+ *   3. Agregation : chaque thread du pool cumule ses propres compteurs
+ *      (occurrences par racine, par scheme, mots inconnus), fusionnes a la fin.
+ *
+ * Seule la tranche en cours de chaque thread est projetee ; le tas ne contient
+ * que les compteurs et, au plus maxUnknownWords mots inconnus distincts par
+ * thread (les suivants ne sont que comptes).
+ *
+ * L'ensemble de schemes utilise est celui du moteur au lancement de l'analyse.
+ */
+public final class CorpusAnalyzer {
+
+    /** Taille par defaut des tranches (16 Mo). */
+    public static final int DEFAULT_CHUNK = 1 << 24;
+
+    /** Nombre par defaut de mots inconnus distincts conserves par thread. */
+    public static final int DEFAULT_MAX_UNKNOWN = 10_000;
+
+    private static final int MAX_CONSONANTS = 64;
+    static final int         WINDOW        = 4096; // fenetre de recherche des frontieres (tranche minimale)
+
+    private final MorphologyEngine engine;
+    private final int              chunkSize;
+    private final int              maxUnknownWords;
+
+    public CorpusAnalyzer(MorphologyEngine engine) {
+        this(engine, DEFAULT_CHUNK, DEFAULT_MAX_UNKNOWN);
+    }
+
+    /**
+     * @param chunkSize       taille visee des tranches, en octets
+     * @param maxUnknownWords mots inconnus distincts conserves par thread
+     */
+    public CorpusAnalyzer(MorphologyEngine engine, int chunkSize, int maxUnknownWords) {
+        if (chunkSize < WINDOW) throw new IllegalArgumentException("Tranche trop petite : " + chunkSize);
+        this.engine          = engine;
+        this.chunkSize       = chunkSize;
+        this.maxUnknownWords = maxUnknownWords;
+    }
+
+    /** Analyse le fichier sur le pool commun. */
+    public Report analyze(Path file) throws IOException {
+        return analyze(file, ForkJoinPool.commonPool());
+    }
+
+    /** Analyse le fichier sur le pool donne. */
+    public Report analyze(Path file, ForkJoinPool pool) throws IOException {
+        long start = System.nanoTime();
+        CompiledSchemeSet set = engine.getCompiledSchemes();
+        Map<Thread, Tally> tallies = new ConcurrentHashMap<>();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = boundaries(ch);
+            pool.invoke(new Slice(ch, bounds, 0, bounds.length - 1, set, tallies));
+            return merge(set, tallies.values(), ch.size(), System.nanoTime() - start);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ── Decoupage ─────────────────────────────────────────────────────────────
+
+    // Debuts de tranches (le dernier element est la taille du fichier)
+    private long[] boundaries(FileChannel ch) throws IOException {
+        long size = ch.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer window = ByteBuffer.allocate(WINDOW);
+        long at = 0;
+        while (size - at > chunkSize) {
+            at = nextBoundary(ch, at + chunkSize, size, window);
+            if (at >= size) break;
+            bounds.add(at);
+        }
+        bounds.add(size);
+        long[] out = new long[bounds.size()];
+        for (int i = 0; i < out.length; i++) out[i] = bounds.get(i);
+        return out;
+    }
+
+    // Premiere position >= from qui commence un caractere hors mot
+    private static long nextBoundary(FileChannel ch, long from, long size, ByteBuffer window)
+            throws IOException {
+        long base = from;
+        while (base < size) {
+            window.clear();
+            int n = ch.read(window, base);
+            if (n <= 0) break;
+            int i = 0;
+            while (i < n && (window.get(i) & 0xC0) == 0x80) i++; // octets de suite
+            while (i < n) {
+                int b = window.get(i) & 0xFF;
+                int len = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+                if (i + len > n) break; // caractere a cheval sur la fenetre
+                if (!isWordChar(decode(window, i, len))) return base + i;
+                i += len;
+            }
+            if (i == 0) return base + n; // fenetre illisible : on avance quand meme
+            base += i;
+        }
+        return size;
+    }
+
+    private static int decode(ByteBuffer b, int i, int len) {
+        int c = b.get(i) & 0xFF;
+        return switch (len) {
+            case 1  -> c;
+            case 2  -> (c & 0x1F) << 6  | (b.get(i + 1) & 0x3F);
+            case 3  -> (c & 0x0F) << 12 | (b.get(i + 1) & 0x3F) << 6 | (b.get(i + 2) & 0x3F);
+            default -> -1; // hors BMP : jamais une lettre arabe
+        };
+    }
+
+    /** Caractere faisant partie d'un mot arabe : lettre, tatweel ou haraka. */
+    static boolean isWordChar(int c) {
+        return c >= 0 && ArabicNormalizer.DEFAULT.isWordChar((char) c);
+    }
+
+    // ── Analyse ───────────────────────────────────────────────────────────────
+
+    // Tranches [lo, hi) : coupe en deux jusqu'a une seule tranche. Jamais serialisee
+    // (RecursiveAction est Serializable, mais pas le canal ni les compteurs)
+    @SuppressWarnings("serial")
+    private final class Slice extends RecursiveAction {
+        private final FileChannel       ch;
+        private final long[]            bounds;
+        private final int               lo, hi;
+        private final CompiledSchemeSet set;
+        private final Map<Thread, Tally> tallies;
+
+        Slice(FileChannel ch, long[] bounds, int lo, int hi, CompiledSchemeSet set, Map<Thread, Tally> tallies) {
+            this.ch      = ch;
+            this.bounds  = bounds;
+            this.lo      = lo;
+            this.hi      = hi;
+            this.set     = set;
+            this.tallies = tallies;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Slice(ch, bounds, lo, mid, set, tallies),
+                          new Slice(ch, bounds, mid, hi, set, tallies));
+                return;
+            }
+            long from = bounds[lo], to = bounds[hi];
+            if (to <= from) return;
+            MappedByteBuffer chunk;
+            try {
+                chunk = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            tallies.computeIfAbsent(Thread.currentThread(), t -> new Tally(set.size())).scan(chunk, set);
+        }
+    }
+
+    // Compteurs d'un thread, et tampons reutilises d'un mot a l'autre
+    private final class Tally {
+        final long[] roots   = new long[RootKey.SPACE];
+        final long[] schemes;
+        final Map<String, Long> unknown = new HashMap<>();
+        long tokens, matched, unknownTokens;
+
+        private final ArabicNormalizer norm = engine.getNormalizer();
+
+        private char[] word = new char[64];
+        private final char[] cons = new char[MAX_CONSONANTS];
+        private final long[] out;
+
+        Tally(int schemeCount) {
+            this.schemes = new long[schemeCount];
+            this.out     = new long[schemeCount];
+        }
+
+        void scan(ByteBuffer b, CompiledSchemeSet set) {
+            int limit = b.limit();
+            int length = 0, consonants = 0;
+            for (int i = 0; i < limit; ) {
+                int c = b.get(i) & 0xFF, len;
+                if (c < 0x80) {
+                    len = 1;
+                } else if ((c & 0xE0) == 0xC0 && i + 1 < limit) {
+                    c = (c & 0x1F) << 6 | (b.get(i + 1) & 0x3F);
+                    len = 2;
+                } else if ((c & 0xF0) == 0xE0 && i + 2 < limit) {
+                    c = (c & 0x0F) << 12 | (b.get(i + 1) & 0x3F) << 6 | (b.get(i + 2) & 0x3F);
+                    len = 3;
+                } else {
+                    c = -1; // hors BMP ou sequence invalide : separateur
+                    len = 1;
+                }
+                i += len;
+                char m = c < 0 ? ArabicNormalizer.SEPARATOR : norm.map((char) c);
+                if (m != ArabicNormalizer.SEPARATOR) {
+                    if (length == word.length) word = Arrays.copyOf(word, length * 2);
+                    word[length++] = (char) c;
+                    if (m == ArabicNormalizer.DROP) continue;
+                    if (m < ArabicNormalizer.EXPANSION) {
+                        if (consonants < MAX_CONSONANTS) cons[consonants] = m;
+                        consonants++;
+                    } else {
+                        String e = norm.expansion(m); // ligature : plusieurs lettres
+                        for (int k = 0; k < e.length(); k++, consonants++) {
+                            if (consonants < MAX_CONSONANTS) cons[consonants] = e.charAt(k);
+                        }
+                    }
+                } else if (length > 0) {
+                    token(length, consonants, set);
+                    length = consonants = 0;
+                }
+            }
+            if (length > 0) token(length, consonants, set);
+        }
+
+        private void token(int length, int consonants, CompiledSchemeSet set) {
+            if (consonants == 0) return; // harakat isoles
+            tokens++;
+            int n = consonants <= MAX_CONSONANTS ? set.match(cons, consonants, out) : 0;
+            if (n == 0) {
+                unknownTokens++;
+                if (unknown.size() < maxUnknownWords) unknown.merge(new String(word, 0, length), 1L, Long::sum);
+                else unknown.computeIfPresent(new String(word, 0, length), (w, k) -> k + 1);
+                return;
+            }
+            matched++;
+            for (int i = 0; i < n; i++) {
+                roots[CompiledSchemeSet.rootOf(out[i])]++;
+                schemes[CompiledSchemeSet.schemeOf(out[i])]++;
+            }
+        }
+    }
+
+    // ── Resultat ──────────────────────────────────────────────────────────────
+
+    private static Report merge(CompiledSchemeSet set, Iterable<Tally> tallies, long bytes, long nanos) {
+        long[] roots   = new long[RootKey.SPACE];
+        long[] schemes = new long[set.size()];
+        Map<String, Long> unknown = new HashMap<>();
+        long tokens = 0, matched = 0, unknownTokens = 0;
+        for (Tally t : tallies) {
+            for (int k = 0; k < roots.length; k++)   roots[k]   += t.roots[k];
+            for (int s = 0; s < schemes.length; s++) schemes[s] += t.schemes[s];
+            t.unknown.forEach((w, n) -> unknown.merge(w, n, Long::sum));
+            tokens        += t.tokens;
+            matched       += t.matched;
+            unknownTokens += t.unknownTokens;
+        }
+        return new Report(set, roots, schemes, unknown, tokens, matched, unknownTokens, bytes, nanos);
+    }
+
+    /** Resultat d'une analyse de corpus. */
+    public static final class Report {
+        private final CompiledSchemeSet set;
+        private final long[]            roots;
+        private final long[]            schemes;
+        private final Map<String, Long> unknown;
+        private final long tokens, matched, unknownTokens, bytes, nanos;
+
+        private Report(CompiledSchemeSet set, long[] roots, long[] schemes, Map<String, Long> unknown,
+                       long tokens, long matched, long unknownTokens, long bytes, long nanos) {
+            this.set           = set;
+            this.roots         = roots;
+            this.schemes       = schemes;
+            this.unknown       = unknown;
+            this.tokens        = tokens;
+            this.matched       = matched;
+            this.unknownTokens = unknownTokens;
+            this.bytes         = bytes;
+            this.nanos         = nanos;
+        }
+
+        public long getTokenCount()        { return tokens; }
+        public long getMatchedTokenCount() { return matched; }
+        public long getUnknownTokenCount() { return unknownTokens; }
+        public long getByteCount()         { return bytes; }
+        public long getElapsedNanos()      { return nanos; }
+
+        /** Occurrences d'une racine (cle RootKey) parmi les analyses. */
+        public long getRootHits(int rootKey) {
+            return rootKey >= 0 && rootKey < roots.length ? roots[rootKey] : 0;
+        }
+
+        /** Racines rencontrees, par nombre d'occurrences decroissant. */
+        public Map<String, Long> getRootHits() {
+            List<Integer> keys = new ArrayList<>();
+            for (int k = 0; k < roots.length; k++) if (roots[k] > 0) keys.add(k);
+            keys.sort((a, b) -> Long.compare(roots[b], roots[a]));
+            Map<String, Long> hits = new LinkedHashMap<>();
+            for (int k : keys) hits.put(RootKey.toString(k), roots[k]);
+            return hits;
+        }
+
+        /** Occurrences par scheme (ordre du catalogue). */
+        public Map<String, Long> getSchemeHits() {
+            Map<String, Long> hits = new LinkedHashMap<>();
+            for (int s = 0; s < schemes.length; s++) hits.put(set.get(s).getName(), schemes[s]);
+            return hits;
+        }
+
+        /** Mots inconnus conserves, avec leur nombre d'occurrences. */
+        public Map<String, Long> getUnknownWords() { return Collections.unmodifiableMap(unknown); }
+
+        /** Affiche le resume et les n racines les plus frequentes. */
+        public void display(int top) {
+            double seconds = nanos / 1e9;
+            System.out.printf("  %d octets | %d mots | %d analyses | %d inconnus | %.2f s (%.1f Mo/s)%n",
+                    bytes, tokens, matched, unknownTokens, seconds, bytes / 1e6 / Math.max(seconds, 1e-9));
+            System.out.println("  Racines les plus frequentes :");
+            getRootHits().entrySet().stream().limit(top)
+                    .forEach(e -> System.out.printf("    %-8s : %d%n", e.getKey(), e.getValue()));
+            System.out.println("  Schemes :");
+            getSchemeHits().forEach((name, n) -> System.out.printf("    %-8s : %d%n", name, n));
+        }
+    }
+}
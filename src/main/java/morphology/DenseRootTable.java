@@ -0,0 +1,70 @@
+package morphology;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Index dense des racines, adresse directement par la cle RootKey.
+ *
+ * L'espace des racines triliteres est minuscule (3 lettres de 6 bits, soit
+ * 2^18 cles) : un tableau de bits de presence et un tableau de nœuds indexes
+ * par la cle suffisent pour une recherche en O(1), sans comparaison.
+ *
+ * Cet index est optionnel et vient en complement de l'AVLTree, qui reste la
+ * structure de reference pour le parcours ordonne et l'affichage. Il pointe
+ * vers les nœuds de l'arbre : ceux-ci doivent donc garder leur identite
+ * (une racine reste portee par le meme nœud tant qu'elle n'est pas supprimee).
+ *
+ * Concurrence : les ecritures (put/remove) doivent etre serialisees par
+ * l'appelant ; les lectures sont sans verrou (publication release/acquire).
+ *
+ * Memoire : 2^18 references + 2^18 bits (environ 1 Mo avec oops compresses).
+ */
+public class DenseRootTable {
+
+    private static final VarHandle BITS  = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle NODES = MethodHandles.arrayElementVarHandle(AVLNode[].class);
+
+    private final long[]    present = new long[RootKey.SPACE >>> 6];
+    private final AVLNode[] slots   = new AVLNode[RootKey.SPACE];
+    private volatile int    size;
+
+    private static boolean inRange(int key) {
+        return key >= 0 && key < RootKey.SPACE;
+    }
+
+    /** Indique si la racine est presente (sondage du tableau de bits). */
+    public boolean contains(int key) {
+        return inRange(key) && ((long) BITS.getAcquire(present, key >>> 6) & (1L << key)) != 0;
+    }
+
+    /**
+     * Retourne le nœud associe a une racine.
+     * @return le nœud AVL ou null si absent
+     */
+    public AVLNode get(int key) {
+        return inRange(key) ? (AVLNode) NODES.getAcquire(slots, key) : null;
+    }
+
+    /** Associe une racine a son nœud dans l'arbre. */
+    public void put(int key, AVLNode node) {
+        if (!inRange(key)) throw new IllegalArgumentException("Cle de racine invalide : " + key);
+        if (!contains(key)) size++;
+        NODES.setRelease(slots, key, node);
+        BITS.setRelease(present, key >>> 6, present[key >>> 6] | 1L << key);
+    }
+
+    /**
+     * Retire une racine de l'index.
+     * @return true si retiree, false si absente
+     */
+    public boolean remove(int key) {
+        if (!contains(key)) return false;
+        BITS.setRelease(present, key >>> 6, present[key >>> 6] & ~(1L << key));
+        NODES.setRelease(slots, key, null);
+        size--;
+        return true;
+    }
+
+    public int size() { return size; }
+}
@@ -0,0 +1,331 @@
+package morphology;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Arene hors tas pour les derives valides et la frequence des racines.
+ *
+ * Lorsqu'elle est active (MorphologyEngine.enableDerivativeArena), l'etat des
+ * derives d'un nœud n'est plus un objet du tas : il est ecrit dans des blocs
+ * de memoire directe (ByteBuffer.allocateDirect) et le nœud n'en garde que la
+ * position (AVLNode.ref). Le tas ne contient plus que le squelette de l'arbre ;
+ * le ramasse-miettes n'a plus a parcourir les tableaux de derives.
+ *
+ * Enregistrement (aligne sur 8 octets), a la position ref :
+ *   int frequence | short w | short s | w × long bits par scheme |
+ *   s × int identifiant | s × int fin | formes de surface (ArabicCodec)
+ *   (memes informations que AVLNode.Derivatives)
+ *
+ * ref = indice du bloc << 32 | decalage ; 0 = aucun derive, DETACHED = nœud
+ * ramene sur le tas (racine supprimee de l'arbre).
+ *
+ * Un enregistrement n'est jamais modifie : un nouveau derive ecrit une copie
+ * a la fin de l'arene puis publie sa position par compare-and-set sur le nœud,
+ * exactement comme la copie a l'ecriture du tas. Les anciennes copies sont
+ * comptees comme perdues ; compact() recopie les enregistrements vivants dans
+ * de nouveaux blocs et abandonne les anciens (liberes par le ramasse-miettes
+ * avec leur ByteBuffer).
+ *
+ * Concurrence : lectures et ajouts prennent le verrou de lecture (partage) ;
+ * seule la compaction, qui deplace les enregistrements, prend le verrou
+ * d'ecriture. L'allocation dans le bloc courant est synchronisee. La
+ * compaction n'est jamais declenchee par un ajout : le moteur l'execute sur
+ * demande, sous son propre verrou d'ecriture, de sorte qu'aucun nœud n'est
+ * rattache ou detache pendant la recopie.
+ */
+public final class DerivativeArena {
+
+    static final long DETACHED = -1L;
+
+    static final int DEFAULT_CHUNK = 1 << 20;
+
+    /** Marque placee dans AVLNode.derivatives d'un nœud stocke dans cette arene. */
+    final class Marker extends AVLNode.Derivatives {
+        private Marker() { super(new long[0], new int[0], new int[0], new byte[0], 0); }
+
+        DerivativeArena arena() { return DerivativeArena.this; }
+    }
+
+    private final Marker      marker = new Marker();
+    private final StampedLock lock   = new StampedLock();
+    private final int         chunkSize;
+    private final AtomicLong  garbage = new AtomicLong();
+
+    // Blocs alloues ; seul le dernier recoit de nouveaux enregistrements
+    private volatile ByteBuffer[] chunks;
+    private int                   count;
+    private int                   top;       // premiere position libre du dernier bloc
+    private long                  used;      // octets alloues (vivants + perdus)
+    private long                  reserved;  // capacite totale des blocs
+
+    DerivativeArena(int chunkSize) {
+        if (chunkSize < 64) throw new IllegalArgumentException("Bloc trop petit : " + chunkSize);
+        this.chunkSize = chunkSize;
+        reset();
+    }
+
+    // Premier bloc vide ; la position 0 du bloc 0 est reservee (ref 0 = aucun derive)
+    private void reset() {
+        chunks   = new ByteBuffer[]{ByteBuffer.allocateDirect(chunkSize)};
+        count    = 1;
+        top      = 8;
+        used     = 8;
+        reserved = chunkSize;
+        garbage.set(0);
+    }
+
+    // ── Rattachement des nœuds ────────────────────────────────────────────────
+
+    /** Deplace les derives d'un nœud du tas vers l'arene. */
+    void attach(AVLNode node) {
+        long stamp = lock.readLock();
+        try {
+            while (true) {
+                AVLNode.Derivatives d = node.derivatives;
+                if (d instanceof Marker) return;
+                long r = d == null ? 0 : write(d);
+                node.ref = r;
+                if (AVLNode.DERIVATIVES.compareAndSet(node, d, marker)) return;
+                discard(r); // derive ajoute sur le tas entre-temps : on recommence
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Ramene les derives d'un nœud sur le tas (racine retiree de l'arbre). */
+    void detach(AVLNode node) {
+        if (node.derivatives != marker) return;
+        long stamp = lock.readLock();
+        try {
+            long r = node.ref;
+            while (!AVLNode.REF.compareAndSet(node, r, DETACHED)) r = node.ref;
+            AVLNode.Derivatives d = r == 0 ? null : read(r);
+            discard(r);
+            node.derivatives = d;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Nœud detache par un autre thread : attend que son etat soit sur le tas
+    private void awaitDetached(AVLNode node) {
+        while (node.derivatives == marker) Thread.onSpinWait();
+    }
+
+    // ── Lecture ───────────────────────────────────────────────────────────────
+
+    /** Etat des derives du nœud, decode sur le tas (null si aucun). */
+    AVLNode.Derivatives read(AVLNode node) {
+        long stamp = lock.readLock();
+        try {
+            long r = node.ref;
+            if (r != DETACHED) return r == 0 ? null : read(r);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        awaitDetached(node);
+        return node.derivatives();
+    }
+
+    boolean contains(AVLNode node, int id) {
+        long stamp = lock.readLock();
+        try {
+            long r = node.ref;
+            if (r != DETACHED) {
+                if (r == 0) return false;
+                ByteBuffer b = chunk(r);
+                int at = offset(r), word = id >>> 6;
+                return word < b.getShort(at + 4) && (b.getLong(at + 8 + 8 * word) & (1L << id)) != 0;
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        awaitDetached(node);
+        return node.hasDerivative(id);
+    }
+
+    int derivedCount(AVLNode node) {
+        long stamp = lock.readLock();
+        try {
+            long r = node.ref;
+            if (r != DETACHED) {
+                if (r == 0) return 0;
+                ByteBuffer b = chunk(r);
+                int at = offset(r), total = 0;
+                for (int w = 0, words = b.getShort(at + 4); w < words; w++) {
+                    total += Long.bitCount(b.getLong(at + 8 + 8 * w));
+                }
+                return total;
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        awaitDetached(node);
+        return node.getDerivedCount();
+    }
+
+    int frequency(AVLNode node) {
+        long stamp = lock.readLock();
+        try {
+            long r = node.ref;
+            if (r != DETACHED) return r == 0 ? 0 : chunk(r).getInt(offset(r));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        awaitDetached(node);
+        return node.getFrequency();
+    }
+
+    // ── Ajout ─────────────────────────────────────────────────────────────────
+
+    /**
+     * Ajoute un derive au nœud (copie de l'enregistrement + compare-and-set).
+     * @return true si le derive est nouveau
+     */
+    boolean add(AVLNode node, int id, String surface) {
+        long stamp = lock.readLock();
+        try {
+            while (true) {
+                long r = node.ref;
+                if (r == DETACHED) break;
+                AVLNode.Derivatives base = r == 0 ? AVLNode.EMPTY : read(r);
+                if (base.contains(id)) return false;
+                long next = write(base.with(id, surface));
+                if (AVLNode.REF.compareAndSet(node, r, next)) {
+                    discard(r);
+                    return true;
+                }
+                discard(next);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        awaitDetached(node);
+        return node.addDerivative(id, surface);
+    }
+
+    // ── Compaction ────────────────────────────────────────────────────────────
+
+    /**
+     * Vrai lorsque plus de la moitie de l'espace alloue est perdu : la
+     * compaction (MorphologyEngine.compactDerivativeArena) est alors rentable.
+     */
+    public boolean shouldCompact() {
+        long lost = garbage.get();
+        return lost > chunkSize && lost * 2 > used;
+    }
+
+    /**
+     * Recopie les enregistrements vivants des nœuds donnes dans de nouveaux
+     * blocs. Tous les nœuds rattaches a l'arene doivent etre fournis.
+     *
+     * @return le nombre d'octets recuperes
+     */
+    long compact(Iterable<AVLNode> nodes) {
+        long stamp = lock.writeLock();
+        try {
+            ByteBuffer[] old = chunks;
+            long before = reserved;
+            reset();
+            for (AVLNode node : nodes) {
+                long r = node.ref;
+                if (node.derivatives != marker || r == 0 || r == DETACHED) continue;
+                ByteBuffer src = old[(int) (r >>> 32)];
+                int at = offset(r), size = sizeAt(src, at);
+                long moved = allocate(size);
+                ByteBuffer dst = chunk(moved);
+                for (int i = 0; i < size; i += 8) dst.putLong(offset(moved) + i, src.getLong(at + i));
+                node.ref = moved;
+            }
+            return before - reserved;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // ── Enregistrements ───────────────────────────────────────────────────────
+
+    private ByteBuffer chunk(long r) { return chunks[(int) (r >>> 32)]; }
+
+    private static int offset(long r) { return (int) r; }
+
+    private static int align(int size) { return (size + 7) & ~7; }
+
+    // Taille (alignee) de l'enregistrement en position at
+    private static int sizeAt(ByteBuffer b, int at) {
+        int words = b.getShort(at + 4), surfaces = b.getShort(at + 6);
+        int data  = surfaces == 0 ? 0 : b.getInt(at + 8 + 8 * words + 4 * (surfaces + surfaces - 1));
+        return align(8 + 8 * words + 8 * surfaces + data);
+    }
+
+    private synchronized long allocate(int size) {
+        if (top + size > chunks[count - 1].capacity()) {
+            int tail = chunks[count - 1].capacity() - top; // fin de bloc inutilisee
+            used += tail;
+            garbage.addAndGet(tail);
+            int capacity = Math.max(chunkSize, size);
+            if (count == chunks.length) chunks = Arrays.copyOf(chunks, count * 2);
+            chunks[count++] = ByteBuffer.allocateDirect(capacity);
+            reserved += capacity;
+            top = 0;
+        }
+        long r = (long) (count - 1) << 32 | top;
+        top  += size;
+        used += size;
+        return r;
+    }
+
+    private long write(AVLNode.Derivatives d) {
+        int words = d.bits.length, surfaces = d.surfaceIds.length;
+        if (words > Short.MAX_VALUE || surfaces > Short.MAX_VALUE)
+            throw new IllegalStateException("Trop de derives pour une racine.");
+        long r = allocate(align(8 + 8 * words + 8 * surfaces + d.surfaceData.length));
+        ByteBuffer b = chunk(r);
+        int at = offset(r);
+        b.putInt(at, d.frequency);
+        b.putShort(at + 4, (short) words);
+        b.putShort(at + 6, (short) surfaces);
+        at += 8;
+        for (long bits : d.bits)         { b.putLong(at, bits); at += 8; }
+        for (int id : d.surfaceIds)      { b.putInt(at, id);    at += 4; }
+        for (int end : d.surfaceEnds)    { b.putInt(at, end);   at += 4; }
+        b.put(at, d.surfaceData);
+        return r;
+    }
+
+    private AVLNode.Derivatives read(long r) {
+        ByteBuffer b = chunk(r);
+        int at = offset(r);
+        int frequency = b.getInt(at);
+        long[] bits = new long[b.getShort(at + 4)];
+        int[]  ids  = new int[b.getShort(at + 6)];
+        int[]  ends = new int[ids.length];
+        at += 8;
+        for (int i = 0; i < bits.length; i++) { bits[i] = b.getLong(at); at += 8; }
+        for (int i = 0; i < ids.length;  i++) { ids[i]  = b.getInt(at);  at += 4; }
+        for (int i = 0; i < ends.length; i++) { ends[i] = b.getInt(at);  at += 4; }
+        byte[] data = new byte[ends.length == 0 ? 0 : ends[ends.length - 1]];
+        b.get(at, data);
+        return new AVLNode.Derivatives(bits, ids, ends, data, frequency);
+    }
+
+    // Enregistrement remplace ou abandonne
+    private void discard(long r) {
+        if (r != 0 && r != DETACHED) garbage.addAndGet(sizeAt(chunk(r), offset(r)));
+    }
+
+    // ── Statistiques ──────────────────────────────────────────────────────────
+
+    /** Capacite totale des blocs hors tas, en octets. */
+    public long getReservedBytes() { return reserved; }
+
+    /** Octets occupes par des enregistrements encore utilises. */
+    public long getLiveBytes()     { return used - garbage.get(); }
+
+    /** Octets perdus (anciennes copies, fins de bloc), recuperables par compaction. */
+    public long getGarbageBytes()  { return garbage.get(); }
+}
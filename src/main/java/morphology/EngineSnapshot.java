@@ -0,0 +1,268 @@
+package morphology;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Instantane binaire du moteur : schemes, racines, derives valides et frequences.
+ *
+ * Format (version 2, gros-boutiste) :
+ *
+ *   en-tete  : int MAGIC "MSNP" | short VERSION | short options
+ *              (bit 0 index dense, bit 1 lexique inverse, bit 2 catalogue fige,
+ *              bit 3 arene hors tas des derives, bits 4..6 hachage de la table
+ *              des schemes : 0 polynomial, 1 FNV-1a, 2 murmur, 3 classes de
+ *              lettres), bits 7..9 drapeaux du normaliseur (ArabicNormalizer) |
+ *              long LSN du dernier enregistrement du journal inclus (voir
+ *              MutationJournal ; absent en version 1, vaut alors 0)
+ *   schemes  : int n, puis pour chaque scheme du registre, par identifiant :
+ *                chaine nom | chaine categorie | chaine description |
+ *                byte actif | byte L | L elements (byte slot 1..3, ou 0 + char lettre)
+ *   racines  : int n, puis par cle RootKey strictement croissante :
+ *                int cle | int frequence | short m (mots de bits des derives, 0 si aucun) |
+ *                m long | short s (formes de surface) |
+ *                s × (int id scheme, strictement croissant | chaine)
+ *   chaine   : short longueur en octets + UTF-8
+ *
+ * Le registre complet est sauvegarde, y compris les schemes remplaces ou
+ * supprimes : les derives deja valides y font reference par identifiant.
+ *
+ * Une fonction de hachage fournie par l'appelant (autre que celles de
+ * SchemeHash) n'est pas serialisable : l'instantane la recharge en polynomial.
+ *
+ * Ecriture : FileChannel par tampons de 64 Ko dans un fichier temporaire, puis
+ * renommage atomique ; le fichier temporaire est supprime en cas d'echec. Lecture : fichier projete en memoire (mmap) et lu
+ * sequentiellement ; les racines etant deja triees, l'arbre est construit
+ * directement equilibre (AVLTree.loadSorted), sans insertion ni rotation.
+ */
+final class EngineSnapshot {
+
+    static final int   MAGIC   = 0x4D534E50; // "MSNP"
+    static final short VERSION = 2;
+
+    private static final int OPT_DENSE   = 1;
+    private static final int OPT_LEXICON = 1 << 1;
+    private static final int OPT_FROZEN  = 1 << 2;
+    private static final int OPT_ARENA   = 1 << 3;
+    private static final int HASH_SHIFT  = 4;
+    private static final int HASH_MASK   = 7 << HASH_SHIFT;
+    private static final int NORM_SHIFT  = 7;
+    private static final int NORM_MASK   = ArabicNormalizer.ALL_FLAGS << NORM_SHIFT;
+
+    // Strategies de hachage par code (bits 4..6 des options) ; ordre fige par le format
+    private static final SchemeHash[] HASHES = {
+        SchemeHash.POLYNOMIAL, SchemeHash.FNV_1A, SchemeHash.MURMUR, SchemeHash.LETTER_CLASS
+    };
+
+    private EngineSnapshot() { }
+
+    // ── Ecriture ──────────────────────────────────────────────────────────────
+
+    /** A appeler sous verrou de lecture du moteur (voir MorphologyEngine.saveSnapshot). */
+    static void write(MorphologyEngine engine, Path file, long journalLsn) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                Out out = new Out(ch);
+                int options = (engine.isDenseRootIndexEnabled() ? OPT_DENSE   : 0)
+                            | (engine.isLexiconIndexEnabled()   ? OPT_LEXICON : 0)
+                            | (engine.isSchemeCatalogFrozen()   ? OPT_FROZEN  : 0)
+                            | (engine.isDerivativeArenaEnabled() ? OPT_ARENA  : 0)
+                            | hashId(engine.getSchemeHash()) << HASH_SHIFT
+                            | engine.getNormalizer().getFlags() << NORM_SHIFT;
+                out.putInt(MAGIC);
+                out.putShort(VERSION);
+                out.putShort(options);
+                out.putLong(journalLsn);
+
+                List<Scheme> registry = engine.schemeRegistry();
+                out.putInt(registry.size());
+                for (Scheme s : registry) writeScheme(out, s, engine.isActiveScheme(s));
+
+                out.putInt(engine.getRootTree().size());
+                for (AVLNode node : engine.getRootTree()) writeRoot(out, node);
+
+                out.flush();
+                ch.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(tmp, e);
+            throw e;
+        }
+    }
+
+    // Code de la strategie de hachage ; 0 (polynomial) pour une fonction inconnue
+    private static int hashId(SchemeHash hash) {
+        for (int i = 0; i < HASHES.length; i++) if (HASHES[i] == hash) return i;
+        return 0;
+    }
+
+    /** Supprime un fichier temporaire apres un echec, sans masquer l'erreur d'origine. */
+    static void deleteQuietly(Path tmp, Exception cause) {
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static void writeScheme(Out out, Scheme s, boolean active) throws IOException {
+        out.putString(s.getName());
+        out.putString(s.getCategory());
+        out.putString(s.getDescription());
+        out.putByte(active ? 1 : 0);
+        out.putByte(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            out.putByte(s.slotAt(i));
+            if (s.slotAt(i) == 0) out.putShort(s.letterAt(i));
+        }
+    }
+
+    private static void writeRoot(Out out, AVLNode node) throws IOException {
+        AVLNode.Derivatives d = node.derivatives();
+        out.putInt(node.root);
+        out.putInt(d == null ? 0 : d.frequency);
+        if (d == null || d.bits.length == 0) {
+            out.putShort(0);
+            return;
+        }
+        out.putShort(d.bits.length);
+        for (long bits : d.bits) out.putLong(bits);
+        out.putShort(d.surfaceIds.length);
+        for (int i = 0; i < d.surfaceIds.length; i++) {
+            out.putInt(d.surfaceIds[i]);
+            out.putString(d.surfaceAt(i));
+        }
+    }
+
+    // Tampon d'ecriture vide dans le canal lorsqu'il est plein
+    private static final class Out {
+        private final FileChannel ch;
+        private final ByteBuffer  buf = ByteBuffer.allocateDirect(1 << 16);
+
+        Out(FileChannel ch) { this.ch = ch; }
+
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() < n) flush();
+        }
+
+        void putByte(int v)   throws IOException { ensure(1); buf.put((byte) v); }
+        void putShort(int v)  throws IOException { ensure(2); buf.putShort((short) v); }
+        void putInt(int v)    throws IOException { ensure(4); buf.putInt(v); }
+        void putLong(long v)  throws IOException { ensure(8); buf.putLong(v); }
+
+        void putString(String s) throws IOException {
+            byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) throw new IOException("Chaine trop longue pour l'instantane.");
+            putShort(bytes.length);
+            if (bytes.length > buf.remaining()) {
+                flush();
+                ByteBuffer direct = ByteBuffer.wrap(bytes);
+                while (direct.hasRemaining()) ch.write(direct);
+            } else {
+                buf.put(bytes);
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+    }
+
+    // ── Lecture ───────────────────────────────────────────────────────────────
+
+    static MorphologyEngine read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return read(in, file);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Instantane tronque : " + file, e);
+        }
+    }
+
+    private static MorphologyEngine read(ByteBuffer in, Path file) throws IOException {
+        if (in.getInt() != MAGIC) throw new IOException("Fichier non reconnu : " + file);
+        short version = in.getShort();
+        if (version < 1 || version > VERSION) throw new IOException("Version d'instantane non supportee : " + version);
+        int  options    = in.getShort();
+        long journalLsn = version >= 2 ? in.getLong() : 0;
+        int  hash       = (options & HASH_MASK) >>> HASH_SHIFT;
+        if (hash >= HASHES.length) throw new IOException("Fonction de hachage inconnue : " + hash);
+
+        MorphologyEngine engine = new MorphologyEngine(HASHES[hash], false);
+        engine.snapshotLsn = journalLsn;
+        int schemeCount = in.getInt();
+        for (int i = 0; i < schemeCount; i++) {
+            String name = getString(in), category = getString(in), description = getString(in);
+            boolean active = in.get() != 0;
+            Object[] skeleton = new Object[in.get() & 0xFF];
+            for (int p = 0; p < skeleton.length; p++) {
+                int slot = in.get();
+                if (slot < 0 || slot > 3) throw new IOException("Squelette invalide : " + name);
+                skeleton[p] = slot == 0 ? (Object) in.getChar() : (Object) slot;
+            }
+            engine.restoreScheme(new Scheme(name, skeleton, category, description), active);
+        }
+
+        int rootCount = in.getInt();
+        AVLNode[] nodes = new AVLNode[rootCount];
+        int previous = 0;
+        for (int i = 0; i < rootCount; i++) {
+            int key = in.getInt();
+            if (key <= previous || key >= RootKey.SPACE) throw new IOException("Racines non triees ou invalides.");
+            previous = key;
+            AVLNode node = new AVLNode(key);
+            int frequency = in.getInt();
+            int words     = in.getShort() & 0xFFFF;
+            if (words > 0) node.derivatives = readDerivatives(in, words, schemeCount, frequency);
+            nodes[i] = node;
+        }
+        if ((options & OPT_FROZEN)  != 0) engine.freezeSchemes();
+        engine.setNormalizer(ArabicNormalizer.of((options & NORM_MASK) >>> NORM_SHIFT));
+        engine.restoreRoots(nodes, rootCount);
+
+        if ((options & OPT_DENSE)   != 0) engine.enableDenseRootIndex();
+        if ((options & OPT_LEXICON) != 0) engine.enableLexiconIndex();
+        if ((options & OPT_ARENA)   != 0) engine.enableDerivativeArena();
+        return engine;
+    }
+
+    private static AVLNode.Derivatives readDerivatives(ByteBuffer in, int words, int schemeCount,
+                                                       int frequency) throws IOException {
+        long[] bits = new long[words];
+        for (int w = 0; w < words; w++) {
+            bits[w] = in.getLong();
+            int highest = (w << 6) + 63 - Long.numberOfLeadingZeros(bits[w]);
+            if (bits[w] != 0 && highest >= schemeCount) throw new IOException("Derive vers un scheme inconnu.");
+        }
+        int      surfaces = in.getShort() & 0xFFFF;
+        int[]    ids      = new int[surfaces];
+        String[] forms    = new String[surfaces];
+        for (int i = 0; i < surfaces; i++) {
+            ids[i]   = in.getInt();
+            forms[i] = getString(in);
+            if (ids[i] < 0 || ids[i] >= schemeCount || (i > 0 && ids[i] <= ids[i - 1]))
+                throw new IOException("Forme de surface invalide (scheme " + ids[i] + ").");
+        }
+        return new AVLNode.Derivatives(bits, ids, forms, frequency);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,190 @@
+package morphology;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Table figee des schemes, adressee par un hachage parfait minimal (CHD :
+ * "compress, hash and displace").
+ *
+ * Pour n schemes, la table a exactement n cases et chaque nom a sa propre case :
+ *   1. un hachage 64 bits du nom (une seule lecture de la chaine) ;
+ *   2. ses 32 bits forts choisissent un petit groupe parmi ⌈n / LAMBDA⌉ ;
+ *   3. le deplacement d du groupe (calcule a la construction) donne la case
+ *        pos = (f1 + d mod n + (d / n) * f2) mod n
+ *      ou f1 et f2 sont derives du meme hachage.
+ * get(name) = un hachage, deux acces tableau et une comparaison de chaine
+ * (le nom cherche peut etre absent). Aucune gestion de collision, aucune case
+ * vide, pire cas O(1).
+ *
+ * Construction : les groupes sont places du plus grand au plus petit, chacun
+ * avec le premier deplacement qui envoie tous ses noms sur des cases libres.
+ * Un groupe d'un seul nom trouve toujours une case libre parmi les n premiers
+ * deplacements. Si un groupe ne peut etre place (deux noms de meme hachage
+ * 64 bits, groupe trop gros), la construction recommence avec une autre graine.
+ *
+ * La table est immuable : elle n'offre que l'acces en lecture (SchemeLookup).
+ * Le moteur la construit par freezeSchemes() et la reconstruit a chaque
+ * modification du catalogue tant que celui-ci reste fige.
+ */
+public final class FrozenSchemeTable implements SchemeLookup {
+
+    private static final int LAMBDA    = 4;    // noms par groupe en moyenne
+    private static final int MAX_SEEDS = 64;
+
+    private final long     seed;
+    private final int[]    displacement;       // par groupe
+    private final String[] keys;               // par case
+    private final Scheme[] values;
+
+    /**
+     * @param schemes schemes a figer, indexes par leur nom (noms distincts)
+     * @throws IllegalArgumentException si deux schemes portent le meme nom
+     */
+    public FrozenSchemeTable(Collection<Scheme> schemes) {
+        Scheme[] all = schemes.toArray(new Scheme[0]);
+        Set<String> names = new HashSet<>();
+        for (Scheme scheme : all) {
+            if (!names.add(scheme.getName())) throw new IllegalArgumentException("Scheme en double : " + scheme.getName());
+        }
+        int n = all.length;
+        this.keys   = new String[n];
+        this.values = new Scheme[n];
+        this.displacement = new int[Math.max(1, (n + LAMBDA - 1) / LAMBDA)];
+
+        long s = 0;
+        boolean built = false;
+        for (int attempt = 0; attempt < MAX_SEEDS && !built; attempt++) {
+            s = SchemeHash.fmix64(0x9E3779B97F4A7C15L * (attempt + 1));
+            built = build(all, s);
+        }
+        if (!built) throw new IllegalStateException("Hachage parfait introuvable pour " + n + " schemes.");
+        this.seed = s;
+    }
+
+    // Place tous les groupes avec la graine donnee ; false si un groupe est impossible
+    private boolean build(Scheme[] all, long s) {
+        int n = all.length;
+        int r = displacement.length;
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        Arrays.fill(displacement, 0);
+
+        long[] hashes = new long[n];
+        int[]  bucketSize = new int[r];
+        for (int i = 0; i < n; i++) {
+            hashes[i] = hash64(all[i].getName(), s);
+            bucketSize[bucketOf(hashes[i], r)]++;
+        }
+        // Noms regroupes par groupe (tri par comptage), groupes par taille decroissante
+        int[] start = new int[r + 1];
+        for (int b = 0; b < r; b++) start[b + 1] = start[b] + bucketSize[b];
+        int[] members = new int[n];
+        int[] fill    = Arrays.copyOf(start, r);
+        for (int i = 0; i < n; i++) members[fill[bucketOf(hashes[i], r)]++] = i;
+        Integer[] order = new Integer[r];
+        for (int b = 0; b < r; b++) order[b] = b;
+        Arrays.sort(order, (a, b) -> bucketSize[b] - bucketSize[a]);
+
+        boolean[] taken = new boolean[n];
+        int[]     slots = new int[LAMBDA * 8];
+        long      maxTries = (long) n * 64;
+        for (int b : order) {
+            int size = bucketSize[b];
+            if (size == 0) break;
+            if (size > slots.length) return false;
+            boolean placed = false;
+            for (int d = 0; d < maxTries && !placed; d++) {
+                placed = true;
+                for (int k = 0; k < size && placed; k++) {
+                    int pos = position(hashes[members[start[b] + k]], d, n);
+                    if (taken[pos]) placed = false;
+                    for (int j = 0; j < k && placed; j++) if (slots[j] == pos) placed = false;
+                    slots[k] = pos;
+                }
+                if (placed) {
+                    displacement[b] = d;
+                    for (int k = 0; k < size; k++) {
+                        Scheme sc = all[members[start[b] + k]];
+                        taken[slots[k]]  = true;
+                        keys[slots[k]]   = sc.getName();
+                        values[slots[k]] = sc;
+                    }
+                }
+            }
+            if (!placed) return false;
+        }
+        return true;
+    }
+
+    // --- Fonction de hachage -----------------------------------------------------
+
+    // FNV-1a 64 bits avec graine, suivi d'un melange complet
+    private static long hash64(String key, long seed) {
+        long h = seed ^ 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        return SchemeHash.fmix64(h);
+    }
+
+    private static int bucketOf(long h, int r) {
+        return (int) ((h >>> 32) % r);
+    }
+
+    private static int position(long h, int d, int n) {
+        long f1 = h & 0x7FFFFFFFL;
+        long f2 = (h * 0x9E3779B97F4A7C15L) >>> 33;
+        return (int) ((f1 + d % n + (long) (d / n) * f2) % n);
+    }
+
+    // Case du nom (sans verification de presence)
+    private int slotOf(String key) {
+        long h = hash64(key, seed);
+        return position(h, displacement[bucketOf(h, displacement.length)], keys.length);
+    }
+
+    // --- Lecture -----------------------------------------------------------------
+
+    /**
+     * Recupere un scheme par son nom.
+     * @return le Scheme ou null si absent
+     */
+    @Override
+    public Scheme get(String key) {
+        if (keys.length == 0) return null;
+        int i = slotOf(key);
+        return keys[i].equals(key) ? values[i] : null;
+    }
+
+    @Override
+    public List<Scheme> getAllSchemes() { return new ArrayList<>(Arrays.asList(values)); }
+
+    @Override
+    public List<String> getAllKeys()    { return new ArrayList<>(Arrays.asList(keys)); }
+
+    @Override
+    public int getSize()     { return keys.length; }
+
+    @Override
+    public int getCapacity() { return keys.length; }
+
+    /** Chaque case contient exactement un scheme. */
+    @Override
+    public int getBucketSize(int idx) { return idx >= 0 && idx < keys.length ? 1 : 0; }
+
+    @Override
+    public int bucketIndexOf(String key) { return keys.length == 0 ? -1 : slotOf(key); }
+
+    /** Nombre de groupes (un deplacement stocke par groupe). */
+    public int getGroupCount() { return displacement.length; }
+
+    /** Plus grand deplacement retenu (effort de construction). */
+    public int getMaxDisplacement() {
+        int max = 0;
+        for (int d : displacement) max = Math.max(max, d);
+        return max;
+    }
+}
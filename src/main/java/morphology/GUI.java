@@ -74,15 +74,7 @@ public class GUI extends JFrame {
         setLocationRelativeTo(null);
 
         // Racines par defaut (20 racines arabes courantes)
-        engine.loadRootsFromList(Arrays.asList(
-            "\u0643\u062a\u0628", "\u0642\u0631\u0623", "\u0639\u0644\u0645",
-            "\u0641\u0647\u0645", "\u062f\u0631\u0633", "\u0641\u062a\u062d",
-            "\u0646\u0635\u0631", "\u062d\u0645\u0644", "\u062c\u0644\u0633",
-            "\u062e\u0631\u062c", "\u062f\u062e\u0644", "\u0642\u0648\u0644",
-            "\u0636\u0631\u0628", "\u0633\u0645\u0639", "\u0631\u0623\u0649",
-            "\u0623\u0643\u0644", "\u0634\u0631\u0628", "\u0646\u0638\u0631",
-            "\u062d\u0643\u0645", "\u0635\u0644\u062d"
-        ));
+        engine.loadRootsFromList(MorphologyEngine.DEFAULT_ROOTS);
 
         getContentPane().setBackground(C_BG);
         getContentPane().setLayout(new BorderLayout());
@@ -261,10 +253,10 @@ public class GUI extends JFrame {
         left.add(btn("Rechercher", C_TEAL, e -> {
             AVLNode n = engine.searchRoot(inp.getText().trim());
             if (n == null) { rootOut.setText("[X] Introuvable."); return; }
-            rootOut.setText("[OK] " + n.root
-                + "\nDerives : " + n.derivedWords.size()
-                + "\nFrequence : " + n.frequency
-                + (n.derivedWords.isEmpty() ? "" : "\nMots : " + String.join(" | ", n.derivedWords)));
+            rootOut.setText("[OK] " + n.getRootWord()
+                + "\nDerives : " + n.getDerivedCount()
+                + "\nFrequence : " + n.getFrequency()
+                + (n.getDerivedCount() == 0 ? "" : "\nMots : " + String.join(" | ", engine.getDerivedWords(n))));
         }));
         left.add(box(6));
         // Supprimer
@@ -278,10 +270,11 @@ public class GUI extends JFrame {
         left.add(btn("Voir derives valides", C_GOLD, e -> {
             AVLNode n = engine.searchRoot(inp.getText().trim());
             if (n == null) { rootOut.setText("[X] Introuvable."); return; }
-            StringBuilder sb = new StringBuilder("Derives pour " + n.root + " :\n");
-            if (n.derivedWords.isEmpty()) sb.append("  (aucun)\n");
-            else n.derivedWords.forEach(w -> sb.append("  - ").append(w).append("\n"));
-            sb.append("Frequence : ").append(n.frequency);
+            StringBuilder sb = new StringBuilder("Derives pour " + n.getRootWord() + " :\n");
+            List<String> words = engine.getDerivedWords(n);
+            if (words.isEmpty()) sb.append("  (aucun)\n");
+            else words.forEach(w -> sb.append("  - ").append(w).append("\n"));
+            sb.append("Frequence : ").append(n.getFrequency());
             rootOut.setText(sb.toString());
         }));
         left.add(box(14));
@@ -344,14 +337,13 @@ public class GUI extends JFrame {
     /** Met a jour la table ET le canvas en meme temps */
     private void refreshRoots() {
         rootsModel.setRowCount(0);
-        List<String> roots = engine.getAllRoots();
-        for (int i = 0; i < roots.size(); i++) {
-            AVLNode n = engine.getRootTree().search(roots.get(i));
+        int i = 0;
+        for (AVLNode n : engine.getRootTree()) {
             rootsModel.addRow(new Object[]{
-                i + 1, roots.get(i),
-                n != null ? n.height : "-",
-                n != null ? n.derivedWords.size() : 0,   // mis a jour en temps reel
-                n != null ? n.frequency : 0               // mis a jour en temps reel
+                ++i, n.getRootWord(),
+                n.height,
+                n.getDerivedCount(),   // mis a jour en temps reel
+                n.getFrequency()            // mis a jour en temps reel
             });
         }
         if (avlCanvas != null) { avlCanvas.rebuild(); avlCanvas.revalidate(); }
@@ -489,7 +481,7 @@ public class GUI extends JFrame {
             AVLNode node = engine.getRootTree().search(cleaned);
             if (node == null) { JOptionPane.showMessageDialog(this,"Racine introuvable dans l'arbre."); return; }
             for (int i = 0; i < genModel.getRowCount(); i++)
-                node.addDerivedWord((String) genModel.getValueAt(i, 1));
+                engine.recordDerivative(cleaned, (String) genModel.getValueAt(i, 0));
             refreshRoots(); // met a jour derives + frequence dans la table
             JOptionPane.showMessageDialog(this, "[OK] " + genModel.getRowCount() + " derives enregistres pour " + cleaned);
         }));
@@ -812,7 +804,8 @@ public class GUI extends JFrame {
                 g2.setFont(new Font("Arial", Font.BOLD, 12));
                 g2.setColor(new Color(18,20,26));
                 FontMetrics fm = g2.getFontMetrics();
-                g2.drawString(n.root, pt.x - fm.stringWidth(n.root)/2, pt.y + fm.getAscent()/2 - 1);
+                String label = n.getRootWord();
+                g2.drawString(label, pt.x - fm.stringWidth(label)/2, pt.y + fm.getAscent()/2 - 1);
                 // Hauteur (petite etiquette)
                 g2.setFont(new Font("Monospaced", Font.PLAIN, 9));
                 g2.setColor(new Color(140,140,120));
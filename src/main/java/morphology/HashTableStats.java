@@ -0,0 +1,105 @@
+package morphology;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mesures de repartition d'une table de schemes a chainage.
+ *
+ *   - histogramme : histogram[k] = nombre de buckets contenant k schemes
+ *   - chaine maximale
+ *   - sondages attendus : nombre moyen de cles comparees pour retrouver une
+ *     cle presente, Σ_buckets k(k+1)/2 / n (1.0 = aucune collision), et pour
+ *     une cle absente, n / capacite (chaine parcourue en entier)
+ *
+ * measure() et displayComparison() evaluent les strategies de SchemeHash sur
+ * un catalogue de noms sans toucher a la table du moteur.
+ */
+public final class HashTableStats {
+
+    private final int   size;
+    private final int   capacity;
+    private final int[] histogram;
+
+    private HashTableStats(int size, int capacity, int[] histogram) {
+        this.size      = size;
+        this.capacity  = capacity;
+        this.histogram = histogram;
+    }
+
+    /** Photographie de la repartition actuelle d'une table. */
+    public static HashTableStats of(SchemeLookup table) {
+        int   capacity = table.getCapacity();
+        int[] counts   = new int[capacity];
+        int   size = 0, max = 0;
+        for (int i = 0; i < capacity; i++) {
+            counts[i] = table.getBucketSize(i);
+            size += counts[i];
+            max   = Math.max(max, counts[i]);
+        }
+        int[] histogram = new int[max + 1];
+        for (int c : counts) histogram[c]++;
+        return new HashTableStats(size, capacity, histogram);
+    }
+
+    /** Repartition qu'obtiendrait une SchemeHashTable remplie avec ces noms. */
+    public static HashTableStats measure(SchemeHash hashFunction, Collection<String> names) {
+        SchemeHashTable table = new SchemeHashTable(hashFunction);
+        for (String name : names) table.put(name, null);
+        return of(table);
+    }
+
+    /** Strategies fournies, par nom d'affichage. */
+    public static Map<String, SchemeHash> strategies() {
+        Map<String, SchemeHash> all = new LinkedHashMap<>();
+        all.put("polynomial",   SchemeHash.POLYNOMIAL);
+        all.put("fnv-1a",       SchemeHash.FNV_1A);
+        all.put("murmur",       SchemeHash.MURMUR);
+        all.put("letter-class", SchemeHash.LETTER_CLASS);
+        return all;
+    }
+
+    /** Compare les strategies fournies sur un catalogue de noms de schemes. */
+    public static void displayComparison(Collection<String> names) {
+        System.out.printf("  %-14s | %-8s | %-12s | %-12s%n",
+                "Strategie", "Max", "Sondages OK", "Sondages KO");
+        System.out.println("  ---------------------------------------------------------------");
+        for (Map.Entry<String, SchemeHash> e : strategies().entrySet()) {
+            HashTableStats s = measure(e.getValue(), names);
+            System.out.printf("  %-14s | %-8d | %-12.3f | %-12.3f%n",
+                    e.getKey(), s.getMaxChainLength(), s.getExpectedProbes(), s.getExpectedMissProbes());
+        }
+    }
+
+    public int getSize()     { return size; }
+    public int getCapacity() { return capacity; }
+
+    /** histogram[k] = nombre de buckets de longueur k (copie). */
+    public int[] getChainHistogram() { return Arrays.copyOf(histogram, histogram.length); }
+
+    public int getMaxChainLength() { return histogram.length - 1; }
+
+    /** Cles comparees en moyenne pour une recherche fructueuse. */
+    public double getExpectedProbes() {
+        if (size == 0) return 0;
+        long total = 0;
+        for (int k = 1; k < histogram.length; k++) total += (long) histogram[k] * k * (k + 1) / 2;
+        return (double) total / size;
+    }
+
+    /** Cles comparees en moyenne pour une recherche infructueuse. */
+    public double getExpectedMissProbes() {
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+
+    /** Affiche l'histogramme des chaines et les sondages attendus. */
+    public void display() {
+        System.out.printf("  %d schemes | %d buckets | chaine max %d | sondages %.3f (present) / %.3f (absent)%n",
+                size, capacity, getMaxChainLength(), getExpectedProbes(), getExpectedMissProbes());
+        for (int k = 0; k < histogram.length; k++) {
+            System.out.printf("    longueur %2d : %6d bucket(s)%n", k, histogram[k]);
+        }
+    }
+}
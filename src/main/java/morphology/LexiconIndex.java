@@ -0,0 +1,179 @@
+package morphology;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lexique inverse materialise : forme consonantique generee → paires (racine, scheme).
+ *
+ * Construit a partir de chaque racine de l'arbre × chaque scheme de la table,
+ * puis maintenu de facon incrementale par le moteur (insertion / suppression de
+ * racine, ajout / mise a jour / suppression de scheme). Valider un mot contre le
+ * lexique indexe revient alors a une seule recherche dans la table de hachage.
+ *
+ * Les formes sont indexees normalisees par le normaliseur du moteur (replis
+ * de lettres compris), comme les mots recherches par lookup.
+ *
+ * Seules les paires dont la forme generee est reconnue en retour par le scheme
+ * (Scheme.matchRoot) sont indexees : le lexique donne exactement les memes
+ * correspondances que l'analyse par schemes, restreintes aux racines indexees.
+ *
+ * Les formes sont conservees empaquetees (ArabicWord, un long par forme) ;
+ * seules les formes de plus de ArabicWord.MAX_LENGTH lettres, rares, restent
+ * des String dans une table annexe.
+ *
+ * Concurrence : les modifications doivent etre serialisees par l'appelant ;
+ * les consultations sont sans verrou (table concurrente, listes d'entrees
+ * immuables remplacees par copie).
+ */
+public class LexiconIndex {
+
+    /** Paire (racine, scheme) ayant produit une forme. */
+    public static final class Entry {
+        private final int    rootKey;
+        private final Scheme scheme;
+
+        Entry(int rootKey, Scheme scheme) {
+            this.rootKey = rootKey;
+            this.scheme  = scheme;
+        }
+
+        public int    getRootKey()  { return rootKey; }
+        public String getRootWord() { return RootKey.toString(rootKey); }
+        public Scheme getScheme()   { return scheme; }
+    }
+
+    private final Map<Long, Entry[]>   forms     = new ConcurrentHashMap<>();
+    private final Map<String, Entry[]> longForms = new ConcurrentHashMap<>();
+    private final ArabicNormalizer     normalizer;
+    private volatile int size;
+
+    public LexiconIndex() {
+        this(ArabicNormalizer.DEFAULT);
+    }
+
+    /** @param normalizer normaliseur des formes indexees et des mots recherches */
+    public LexiconIndex(ArabicNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    // ── Maintenance incrementale ──────────────────────────────────────────────
+
+    /** Indexe toutes les formes d'une racine. */
+    public void addRoot(int rootKey, List<Scheme> schemes) {
+        char[] cons = new char[3];
+        RootKey.decode(rootKey, cons, 0);
+        for (Scheme s : schemes) add(rootKey, cons, s);
+    }
+
+    /** Retire toutes les formes d'une racine. */
+    public void removeRoot(int rootKey, List<Scheme> schemes) {
+        char[] cons = new char[3];
+        RootKey.decode(rootKey, cons, 0);
+        for (Scheme s : schemes) remove(rootKey, cons, s);
+    }
+
+    /** Indexe les formes d'un scheme pour toutes les racines donnees. */
+    public void addScheme(Scheme s, List<Integer> rootKeys) {
+        char[] cons = new char[3];
+        for (int key : rootKeys) {
+            RootKey.decode(key, cons, 0);
+            add(key, cons, s);
+        }
+    }
+
+    /** Retire les formes d'un scheme pour toutes les racines donnees. */
+    public void removeScheme(Scheme s, List<Integer> rootKeys) {
+        char[] cons = new char[3];
+        for (int key : rootKeys) {
+            RootKey.decode(key, cons, 0);
+            remove(key, cons, s);
+        }
+    }
+
+    private void add(int rootKey, char[] cons, Scheme s) {
+        String form = form(cons, s, rootKey);
+        if (form == null) return;
+        long packed = ArabicWord.of(form);
+        if (packed != ArabicWord.NONE) add(forms, packed, rootKey, s);
+        else                           add(longForms, form, rootKey, s);
+    }
+
+    private void remove(int rootKey, char[] cons, Scheme s) {
+        String form = form(cons, s, rootKey);
+        if (form == null) return;
+        long packed = ArabicWord.of(form);
+        if (packed != ArabicWord.NONE) remove(forms, packed, rootKey, s);
+        else                           remove(longForms, form, rootKey, s);
+    }
+
+    private <K> void add(Map<K, Entry[]> map, K form, int rootKey, Scheme s) {
+        Entry[] entries = map.get(form);
+        Entry[] updated = entries == null ? new Entry[1] : Arrays.copyOf(entries, entries.length + 1);
+        updated[updated.length - 1] = new Entry(rootKey, s);
+        map.put(form, updated);
+        size++;
+    }
+
+    private <K> void remove(Map<K, Entry[]> map, K form, int rootKey, Scheme s) {
+        Entry[] entries = map.get(form);
+        if (entries == null) return;
+        Entry[] kept = Arrays.stream(entries)
+                             .filter(e -> e.rootKey != rootKey || e.scheme != s)
+                             .toArray(Entry[]::new);
+        if (kept.length == entries.length) return;
+        size -= entries.length - kept.length;
+        if (kept.length == 0) map.remove(form);
+        else                  map.put(form, kept);
+    }
+
+    // Forme consonantique generee (normalisee), ou null si le scheme ne la reconnait pas
+    private String form(char[] cons, Scheme s, int rootKey) {
+        String form = recognizedForm(cons, s, rootKey);
+        return form != null ? normalizer.normalize(form) : null;
+    }
+
+    /**
+     * Forme generee par le scheme, ou null si le scheme ne la reconnait pas en
+     * retour pour cette racine (meme filtre pour StaticLexicon).
+     */
+    static String recognizedForm(char[] cons, Scheme s, int rootKey) {
+        String form = s.apply(cons);
+        if (form == null) return null;
+        char[] chars = form.toCharArray();
+        return s.matchRoot(chars, chars.length) == rootKey ? form : null;
+    }
+
+    // ── Consultation ──────────────────────────────────────────────────────────
+
+    /**
+     * Retourne les paires (racine, scheme) qui generent le mot donne.
+     * Le mot est normalise comme les formes indexees (diacritiques ignores).
+     */
+    public List<Entry> lookup(String word) {
+        char[] cons = normalizer.normalize(word).toCharArray();
+        if (cons.length == 0) return Collections.emptyList();
+        long    packed  = ArabicWord.pack(cons, cons.length);
+        Entry[] entries = packed != ArabicWord.NONE ? forms.get(packed) : longForms.get(new String(cons));
+        return entries == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(entries));
+    }
+
+    /**
+     * Cherche le scheme par lequel une racine indexee genere le mot.
+     * @return le scheme, ou null si le mot n'est pas une forme de cette racine
+     */
+    public Scheme find(String word, int rootKey) {
+        for (Entry e : lookup(word))
+            if (e.rootKey == rootKey) return e.scheme;
+        return null;
+    }
+
+    /** Nombre de formes distinctes indexees. */
+    public int formCount() { return forms.size() + longForms.size(); }
+
+    /** Nombre de paires (racine, scheme) indexees. */
+    public int size()      { return size; }
+}
@@ -1,10 +1,15 @@
 package morphology;
 
+import java.util.Arrays;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 public class Main {
     public static void main(String[] args) {
+        // Mode non interactif : traitement d'un flux de mots (voir BatchRunner)
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(BatchRunner.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
         // Use system look and feel for better font rendering
         try { UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName()); }
         catch (Exception ignored) {}
@@ -1,6 +1,15 @@
 package morphology;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Moteur de derivation morphologique arabe.
@@ -13,16 +22,75 @@ import java.util.*;
  *   2 → C2
  *   3 → C3
  *   'x' → lettre fixe du scheme
+ *
+ * Concurrence : le moteur peut etre partage entre threads sans verrou externe.
+ *   - Les lectures (analyse, validation, recherche de racine ou de scheme) ne
+ *     bloquent pas : ensemble de schemes compile immuable, index dense et
+ *     lexique lisibles sans verrou, table des schemes concurrente
+ *     (ConcurrentSchemeHashTable), lecture optimiste (StampedLock) de l'arbre
+ *     avec repli sur le verrou de lecture partage seulement si une ecriture a
+ *     eu lieu pendant la lecture.
+ *   - Les modifications (racines, schemes, activation des index) sont
+ *     serialisees par le verrou d'ecriture.
+ *   - Les derives valides et la frequence sont mis a jour par compare-and-set
+ *     sur le nœud (voir AVLNode), sans verrou du moteur, y compris lorsqu'ils
+ *     sont stockes hors tas (DerivativeArena). Journalisation et ajout d'un
+ *     derive se font sous un verrou partage que checkpoint prend brievement en
+ *     exclusif pour lire le LSN de l'instantane.
+ *   - Un parcours de roots() ne doit pas chevaucher une insertion ou une
+ *     suppression de racine : withRoots effectue le parcours sous verrou de
+ *     lecture. getRootTree() donne un acces direct, non synchronise, reserve
+ *     aux interfaces mono-thread (CLI, GUI).
  */
 public class MorphologyEngine {
 
+    /** Racines par defaut (20 racines arabes courantes : كتب، قرأ، علم...). */
+    public static final List<String> DEFAULT_ROOTS = List.of(
+            "\u0643\u062A\u0628", "\u0642\u0631\u0623", "\u0639\u0644\u0645", "\u0641\u0647\u0645", "\u062F\u0631\u0633",
+            "\u0641\u062A\u062D", "\u0646\u0635\u0631", "\u062D\u0645\u0644", "\u062C\u0644\u0633", "\u062E\u0631\u062C",
+            "\u062F\u062E\u0644", "\u0642\u0648\u0644", "\u0636\u0631\u0628", "\u0633\u0645\u0639", "\u0631\u0623\u0649",
+            "\u0623\u0643\u0644", "\u0634\u0631\u0628", "\u0646\u0638\u0631", "\u062D\u0643\u0645", "\u0635\u0644\u062D"
+    );
+
     private final AVLTree         rootTree;
-    private final SchemeHashTable schemeTable;
+    private final SchemeStore     schemeTable;
+    private final SchemeHash      schemeHash;    // hachage de schemeTable (sauve dans l'instantane)
+    private final StampedLock     lock = new StampedLock(); // ecritures + lectures optimistes
+    private final StampedLock     derivativeLock = new StampedLock(); // journalisation + ajout d'un derive
+    private volatile CompiledSchemeSet compiled; // schemes compiles + pre-filtre
+    private volatile boolean schemesFrozen;      // catalogue fige (voir freezeSchemes)
+    private boolean defaultCatalog;              // schemes par defaut jamais modifies (enableJournal)
+    private volatile DenseRootTable denseRoots;  // index direct optionnel (null si inactif)
+    private volatile LexiconIndex lexicon;       // lexique inverse optionnel (null si inactif)
+    private final List<Scheme>    schemesById;   // registre des schemes (identifiants stables)
+    private volatile MutationJournal journal;    // journal des modifications (null si inactif)
+    private volatile DerivativeArena arena;      // derives hors tas optionnels (null si inactif)
+    private volatile AffixSegmenter segmenter = new AffixSegmenter(); // analyzeWordSegmented
+    private volatile AffixSegmenter foldedSegmenter = segmenter;      // affixes replies (normaliseur)
+    private volatile ArabicNormalizer normalizer = ArabicNormalizer.DEFAULT; // cleanRoot + analyse
+    long snapshotLsn;                            // LSN du journal inclus dans l'instantane charge
 
     public MorphologyEngine() {
+        this(SchemeHash.POLYNOMIAL);
+    }
+
+    /**
+     * @param schemeHash fonction de hachage de la table des schemes
+     *                   (voir HashTableStats pour choisir sur mesures)
+     */
+    public MorphologyEngine(SchemeHash schemeHash) {
+        this(schemeHash, true);
+    }
+
+    // Moteur vide si defaultSchemes est faux (rechargement d'un instantane)
+    MorphologyEngine(SchemeHash schemeHash, boolean defaultSchemes) {
         this.rootTree   = new AVLTree();
-        this.schemeTable = new SchemeHashTable();
-        loadDefaultSchemes();
+        this.schemeHash  = schemeHash;
+        this.schemeTable = new ConcurrentSchemeHashTable(schemeHash);
+        this.schemesById = new CopyOnWriteArrayList<>();
+        if (defaultSchemes) loadDefaultSchemes();
+        this.defaultCatalog = defaultSchemes;
+        recompileSchemes();
     }
 
     // ── Schemes par defaut ────────────────────────────────────────────────────
@@ -97,51 +165,293 @@ public class MorphologyEngine {
     }
 
     private void addScheme(String name, Object[] skeleton, String cat, String desc) {
-        schemeTable.put(name, new Scheme(name, skeleton, cat, desc));
+        schemeTable.put(name, register(new Scheme(name, skeleton, cat, desc)));
     }
 
     // ── Gestion des racines ───────────────────────────────────────────────────
 
     public boolean insertRoot(String root) {
-        String cleaned = cleanRoot(root);
-        char[] cons = Scheme.extractConsonants(cleaned);
-        if (cons == null || cons.length != 3) {
+        int key = RootKey.of(cleanRoot(root));
+        if (key == RootKey.NONE) {
             System.out.println("  [X] Racine invalide (doit contenir exactement 3 consonnes) : " + root);
             return false;
         }
-        if (rootTree.search(cleaned) != null) {
+        String cleaned = RootKey.toString(key);
+        if (!insertKey(key)) {
             System.out.println("  [X] Racine deja existante : " + cleaned);
             return false;
         }
-        rootTree.insert(cleaned);
         System.out.println("  [OK] Racine inseree : " + cleaned);
         return true;
     }
 
+    /** Indique si la racine (cle RootKey) est presente dans l'arbre. */
+    public boolean containsRoot(int rootKey) {
+        return findRoot(rootKey) != null;
+    }
+
     public AVLNode searchRoot(String root) {
-        return rootTree.search(cleanRoot(root));
+        return findRoot(RootKey.of(cleanRoot(root)));
     }
 
     public boolean deleteRoot(String root) {
-        String c = cleanRoot(root);
-        if (rootTree.search(c) == null) return false;
-        rootTree.delete(c);
-        return true;
+        int key = RootKey.of(cleanRoot(root));
+        return key != RootKey.NONE && deleteKey(key);
+    }
+
+    private boolean insertKey(int key) {
+        long stamp = lock.writeLock();
+        try {
+            if (rootTree.search(key) != null) return false;
+            if (journal != null)    journal.logInsertRoot(key);
+            AVLNode node = rootTree.insert(key);
+            if (arena != null)      arena.attach(node);
+            if (denseRoots != null) denseRoots.put(key, node);
+            if (lexicon != null)    lexicon.addRoot(key, compiled.asList());
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private boolean deleteKey(int key) {
+        long stamp = lock.writeLock();
+        try {
+            AVLNode node = rootTree.search(key);
+            if (node == null) return false;
+            if (journal != null)    journal.logDeleteRoot(key);
+            rootTree.delete(key);
+            if (arena != null)      arena.detach(node);
+            if (denseRoots != null) denseRoots.remove(key);
+            if (lexicon != null)    lexicon.removeRoot(key, compiled.asList());
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Active l'index dense des racines (voir DenseRootTable) : les recherches
+     * de racine deviennent des sondages de tableau en O(1). L'arbre AVL reste
+     * utilise pour le parcours ordonne et l'affichage.
+     */
+    public void enableDenseRootIndex() {
+        long stamp = lock.writeLock();
+        try {
+            if (denseRoots != null) return;
+            DenseRootTable table = new DenseRootTable();
+            rootTree.forEachNode(n -> table.put(n.root, n));
+            denseRoots = table;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean isDenseRootIndexEnabled() { return denseRoots != null; }
+
+    /**
+     * Active le lexique inverse materialise (voir LexiconIndex) : chaque racine
+     * de l'arbre × chaque scheme est indexee par sa forme generee, puis tenue a
+     * jour a chaque modification. La validation d'un mot contre une racine
+     * indexee devient une seule recherche dans la table.
+     */
+    public void enableLexiconIndex() {
+        long stamp = lock.writeLock();
+        try {
+            if (lexicon != null) return;
+            LexiconIndex index = new LexiconIndex(normalizer);
+            List<Scheme> schemes = compiled.asList();
+            rootTree.forEachNode(n -> index.addRoot(n.root, schemes));
+            lexicon = index;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean isLexiconIndexEnabled() { return lexicon != null; }
+
+    /**
+     * Stocke les derives valides et les frequences hors tas (voir
+     * DerivativeArena), par blocs de 1 Mo : le tas ne garde que le squelette
+     * de l'arbre. Les derives deja enregistres sont deplaces dans l'arene.
+     */
+    public void enableDerivativeArena() {
+        enableDerivativeArena(DerivativeArena.DEFAULT_CHUNK);
+    }
+
+    /** @param chunkSize taille des blocs de memoire directe, en octets */
+    public void enableDerivativeArena(int chunkSize) {
+        long stamp = lock.writeLock();
+        try {
+            if (arena != null) return;
+            DerivativeArena a = new DerivativeArena(chunkSize);
+            rootTree.forEachNode(a::attach);
+            arena = a;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean isDerivativeArenaEnabled() { return arena != null; }
+
+    /** Arene des derives (statistiques d'occupation), ou null si inactive. */
+    public DerivativeArena getDerivativeArena() { return arena; }
+
+    /**
+     * Recopie les derives vivants dans de nouveaux blocs et libere les anciens.
+     * Jamais declenchee par l'enregistrement d'un derive : a appeler par
+     * l'application, par exemple lorsque getDerivativeArena().shouldCompact().
+     * S'execute sous verrou d'ecriture du moteur (aucune racine ajoutee ou
+     * retiree pendant la recopie) ; les ajouts de derives concurrents attendent
+     * la fin de la recopie (verrou de l'arene).
+     *
+     * @return le nombre d'octets hors tas recuperes (0 si l'arene est inactive)
+     */
+    public long compactDerivativeArena() {
+        long stamp = lock.writeLock();
+        try {
+            DerivativeArena a = arena;
+            return a == null ? 0 : a.compact(rootTree);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Paires (racine, scheme) du lexique indexe qui generent le mot.
+     * Necessite enableLexiconIndex().
+     */
+    public List<LexiconIndex.Entry> lookupLexicon(String word) {
+        LexiconIndex index = lexicon;
+        if (index == null) throw new IllegalStateException("Lexique inverse non active.");
+        return index.lookup(word);
+    }
+
+    // Recherche par cle : index dense si actif, sinon lecture optimiste de l'arbre
+    private AVLNode findRoot(int key) {
+        if (key == RootKey.NONE) return null;
+        DenseRootTable dense = denseRoots;
+        if (dense != null) return dense.get(key);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            AVLNode node = rootTree.searchOptimistic(key);
+            if (lock.validate(stamp)) return node;
+        }
+        stamp = lock.readLock();
+        try {
+            return rootTree.search(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void displayRootTree() {
+        long stamp = lock.readLock();
+        try {
+            rootTree.display();
+            System.out.println("  Total : " + rootTree.size() + " racines.\n");
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
-    public void displayRootTree()   { rootTree.display(); System.out.println("  Total : " + rootTree.size() + " racines.\n"); }
-    public List<String> getAllRoots() { return rootTree.getAllRoots(); }
+    public List<String> getAllRoots() { return readLocked(rootTree::getAllRoots); }
+
+    /**
+     * Page de racines dans l'ordre de l'arbre, sans construire la liste complete.
+     * @param offset rang de la premiere racine (0 = la plus petite)
+     * @param limit  nombre maximal de racines
+     */
+    public List<AVLNode> getRootPage(int offset, int limit) {
+        return readLocked(() -> rootTree.page(offset, limit));
+    }
+
+    /**
+     * Flux paresseux sur les nœuds de racines, en ordre croissant, sans copie
+     * de l'arbre. roots().parallel() repartit le parcours sur tous les cœurs.
+     * Non protege contre les modifications concurrentes : voir withRoots.
+     */
+    public Stream<AVLNode> roots() { return StreamSupport.stream(rootTree.spliterator(), false); }
+
+    /**
+     * Execute un traitement sur roots() sous verrou de lecture : d'autres
+     * lecteurs peuvent travailler en parallele, les ecritures attendent la fin.
+     */
+    public <R> R withRoots(Function<Stream<AVLNode>, R> job) {
+        return readLocked(() -> job.apply(roots()));
+    }
 
     // ── Gestion des schemes ───────────────────────────────────────────────────
 
     public void addOrUpdateScheme(String name, Object[] skeleton, String cat, String desc) {
-        schemeTable.put(name, new Scheme(name, skeleton, cat, desc));
+        putScheme(new Scheme(name, skeleton, cat, desc));
         System.out.println("  [OK] Scheme " + name + " ajoute/mis a jour.");
     }
 
-    public boolean deleteScheme(String name) { return schemeTable.delete(name); }
+    private void putScheme(Scheme scheme) {
+        long stamp = lock.writeLock();
+        try {
+            if (journal != null) journal.logPutScheme(scheme);
+            Scheme previous = schemeTable.get(scheme.getName());
+            register(scheme);
+            schemeTable.put(scheme.getName(), scheme);
+            recompileSchemes();
+            if (lexicon != null) {
+                List<Integer> keys = rootKeys();
+                if (previous != null) lexicon.removeScheme(previous, keys);
+                lexicon.addScheme(scheme, keys);
+            }
+            defaultCatalog = false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean deleteScheme(String name) {
+        long stamp = lock.writeLock();
+        try {
+            Scheme previous = schemeTable.get(name);
+            if (previous == null) return false;
+            if (journal != null) journal.logDeleteScheme(name);
+            schemeTable.delete(name);
+            recompileSchemes();
+            if (lexicon != null) lexicon.removeScheme(previous, rootKeys());
+            defaultCatalog = false;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Fige le catalogue : la recherche d'un scheme par nom passe par un hachage
+     * parfait minimal (FrozenSchemeTable), en O(1) dans le pire cas. Le
+     * catalogue reste fige jusqu'a unfreezeSchemes() : un ajout, une mise a
+     * jour ou une suppression de scheme reconstruit le hachage parfait.
+     */
+    public void freezeSchemes() {
+        setSchemesFrozen(true);
+    }
+
+    /** Revient a l'index dynamique (adressage ouvert) pour un catalogue souvent modifie. */
+    public void unfreezeSchemes() {
+        setSchemesFrozen(false);
+    }
+
+    private void setSchemesFrozen(boolean frozen) {
+        long stamp = lock.writeLock();
+        try {
+            schemesFrozen = frozen;
+            recompileSchemes();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean isSchemeCatalogFrozen()   { return schemesFrozen; }
+
     public void displaySchemeTable()         { schemeTable.display(); }
-    public List<Scheme> getAllSchemes()       { return schemeTable.getAllSchemes(); }
+    public List<Scheme> getAllSchemes()       { return compiled.asList(); }
 
     // ── Moteur de derivation ──────────────────────────────────────────────────
 
@@ -151,7 +461,7 @@ public class MorphologyEngine {
     public String generateWord(String root, String schemeName) {
         char[] cons = Scheme.extractConsonants(cleanRoot(root));
         if (cons == null) { System.out.println("  [X] Racine invalide."); return null; }
-        Scheme s = schemeTable.get(schemeName);
+        Scheme s = compiled.get(schemeName);
         if (s == null) { System.out.println("  [X] Scheme inconnu : " + schemeName); return null; }
         return s.apply(cons);
     }
@@ -164,7 +474,9 @@ public class MorphologyEngine {
         char[] cons = Scheme.extractConsonants(cleanRoot(root));
         if (cons == null) return Collections.emptyMap();
         Map<String, String> results = new LinkedHashMap<>();
-        for (Scheme s : schemeTable.getAllSchemes()) {
+        CompiledSchemeSet set = compiled;
+        for (int i = 0; i < set.size(); i++) {
+            Scheme s = set.get(i);
             String word = s.apply(cons);
             if (word != null) results.put(s.getName(), word);
         }
@@ -178,8 +490,9 @@ public class MorphologyEngine {
         char[] cons = Scheme.extractConsonants(cleanRoot(root));
         if (cons == null) return Collections.emptyMap();
         Map<String, String> results = new LinkedHashMap<>();
+        CompiledSchemeSet schemes = compiled;
         for (String name : schemeNames) {
-            Scheme s = schemeTable.get(name.trim());
+            Scheme s = schemes.get(name.trim());
             if (s != null) {
                 String word = s.apply(cons);
                 if (word != null) results.put(name, word);
@@ -195,7 +508,7 @@ public class MorphologyEngine {
         System.out.printf("  %-12s | %-18s | %-20s%n", "Scheme", "Mot Genere", "Categorie");
         System.out.println("  ---------------------------------------------------------------");
         for (Map.Entry<String, String> e : derivatives.entrySet()) {
-            Scheme s = schemeTable.get(e.getKey());
+            Scheme s = compiled.get(e.getKey());
             String cat = (s != null) ? s.getCategory() : "-";
             System.out.printf("  %-12s | %-18s | %-20s%n", e.getKey(), e.getValue(), cat);
         }
@@ -209,22 +522,36 @@ public class MorphologyEngine {
      *
      * Algorithme :
      *  1. Extraire les consonnes de la racine fournie
-     *  2. Pour chaque scheme, tenter d'extraire les consonnes du mot
+     *  2. Pour chaque scheme candidat (SchemeIndex), extraire les consonnes du mot
      *  3. Comparer avec les consonnes de la racine
      */
     public ValidationResult validateMorphology(String word, String root) {
-        char[] rootCons = Scheme.extractConsonants(cleanRoot(root));
-        if (rootCons == null) return new ValidationResult(false, null, "Racine invalide.");
+        String cleaned = cleanRoot(root);
+        if (cleaned.isEmpty()) return new ValidationResult(false, null, "Racine invalide.");
 
-        String rootStr = new String(rootCons);
+        int rootKey = RootKey.of(cleaned);
 
-        for (Scheme s : schemeTable.getAllSchemes()) {
-            char[] extracted = s.extractRoot(word);
-            if (extracted == null) continue;
-            if (new String(extracted).equals(rootStr)) {
+        // Racine indexee : une seule recherche dans le lexique inverse
+        LexiconIndex index = lexicon;
+        AVLNode indexed = index != null ? findRoot(rootKey) : null;
+        if (indexed != null && word != null) {
+            Scheme s = index.find(word, rootKey);
+            if (s == null) return new ValidationResult(false, null, "Aucun scheme ne correspond.");
+            addDerivative(indexed, s, word);
+            return new ValidationResult(true, s, "Correspondance trouvee.");
+        }
+
+        if (rootKey != RootKey.NONE && word != null) {
+            CompiledSchemeSet set = compiled;
+            char[] buf = new char[ArabicNormalizer.capacity(word.length())];
+            long[] out = new long[set.size()];
+            int n = analyze(set, word, 0, word.length(), buf, out);
+            for (int i = 0; i < n; i++) {
+                if (CompiledSchemeSet.rootOf(out[i]) != rootKey) continue;
+                Scheme s = set.get(CompiledSchemeSet.schemeOf(out[i]));
                 // Enregistrer le derive valide
-                AVLNode node = rootTree.search(cleanRoot(root));
-                if (node != null) node.addDerivedWord(word);
+                AVLNode node = findRoot(rootKey);
+                if (node != null) addDerivative(node, s, word);
                 return new ValidationResult(true, s, "Correspondance trouvee.");
             }
         }
@@ -236,67 +563,474 @@ public class MorphologyEngine {
      */
     public List<ValidationResult> analyzeWord(String word) {
         List<ValidationResult> matches = new ArrayList<>();
-        for (Scheme s : schemeTable.getAllSchemes()) {
-            char[] extracted = s.extractRoot(word);
-            if (extracted != null) {
-                String extractedRoot = new String(extracted);
-                boolean inTree = rootTree.search(extractedRoot) != null;
-                ValidationResult vr = new ValidationResult(true, s,
-                        inTree ? "Racine " + extractedRoot + " trouvee dans l'arbre"
-                               : "Racine " + extractedRoot + " (non indexee)");
-                vr.setExtractedRoot(extractedRoot);
+        if (word == null) return matches;
+        CompiledSchemeSet set = compiled;
+        long[] out = new long[set.size()];
+        int n = analyze(set, word, 0, word.length(), new char[ArabicNormalizer.capacity(word.length())], out);
+        for (int i = 0; i < n; i++) matches.add(toResult(set, out[i]));
+        return matches;
+    }
+
+    /**
+     * Analyse avec segmentation des clitiques et affixes.
+     *
+     * Le segmenteur (voir AffixSegmenter) liste en une passe les decoupages
+     * prefixe + radical + suffixe plausibles du mot, et seul chaque radical
+     * retenu est soumis aux schemes. Le mot entier est le premier radical
+     * essaye ; chaque resultat porte sa segmentation (isSegmented()).
+     */
+    public List<ValidationResult> analyzeWordSegmented(String word) {
+        List<ValidationResult> matches = new ArrayList<>();
+        if (word == null) return matches;
+        char[] cons = normalizer.normalize(word).toCharArray();
+        if (cons.length == 0) return matches;
+        CompiledSchemeSet set  = compiled;
+        AffixSegmenter    seg  = foldedSegmenter;
+        int[]             splits = new int[seg.maxCandidates()];
+        int               count  = seg.segment(cons, cons.length, set, splits);
+        char[]            stem   = new char[cons.length];
+        long[]            out    = new long[set.size()];
+        for (int c = 0; c < count; c++) {
+            int p   = AffixSegmenter.prefixLength(splits[c]);
+            int len = cons.length - p - AffixSegmenter.suffixLength(splits[c]);
+            System.arraycopy(cons, p, stem, 0, len);
+            int n = set.match(stem, len, out);
+            for (int i = 0; i < n; i++) {
+                ValidationResult vr = toResult(set, out[i]);
+                vr.setSegmentation(new String(cons, 0, p), new String(stem, 0, len),
+                                   new String(cons, p + len, cons.length - p - len));
                 matches.add(vr);
             }
         }
         return matches;
     }
 
+    /**
+     * Remplace le segmenteur d'affixes utilise par analyzeWordSegmented ; ses
+     * affixes sont replies par le normaliseur du moteur (AffixSegmenter.normalized).
+     */
+    public void setAffixSegmenter(AffixSegmenter segmenter) {
+        long stamp = lock.writeLock();
+        try {
+            this.segmenter       = Objects.requireNonNull(segmenter);
+            this.foldedSegmenter = segmenter.normalized(normalizer);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public AffixSegmenter getAffixSegmenter() { return segmenter; }
+
+    // Resultat d'une correspondance empaquetee (racine extraite, presence dans l'arbre)
+    private ValidationResult toResult(CompiledSchemeSet set, long match) {
+        int     key           = CompiledSchemeSet.rootOf(match);
+        String  extractedRoot = RootKey.toString(key);
+        boolean inTree        = findRoot(key) != null;
+        ValidationResult vr = new ValidationResult(true, set.get(CompiledSchemeSet.schemeOf(match)),
+                inTree ? "Racine " + extractedRoot + " trouvee dans l'arbre"
+                       : "Racine " + extractedRoot + " (non indexee)");
+        vr.setExtractedRoot(extractedRoot);
+        return vr;
+    }
+
+    /**
+     * Analyse sans allocation d'un mot contenu dans text[off..off+len).
+     *
+     * Les consonnes sont extraites dans buf (tampon reutilisable fourni par
+     * l'appelant, de taille ArabicNormalizer.capacity(len) pour accepter les
+     * ligatures) par le normaliseur du moteur, et chaque correspondance est ecrite dans out sous forme
+     * empaquetee : CompiledSchemeSet.schemeOf / rootOf la decodent, et
+     * getCompiledSchemes().get(pos) donne le scheme correspondant.
+     *
+     * @return le nombre de correspondances ecrites (au plus out.length)
+     */
+    public int analyze(CharSequence text, int off, int len, char[] buf, long[] out) {
+        return analyze(compiled, text, off, len, buf, out);
+    }
+
+    private int analyze(CompiledSchemeSet set, CharSequence text, int off, int len,
+                        char[] buf, long[] out) {
+        int n = normalizer.normalize(text, off, len, buf);
+        return n <= 0 ? 0 : set.match(buf, n, out);
+    }
+
     // ── Derives valides ───────────────────────────────────────────────────────
 
+    /**
+     * Enregistre comme derive valide de la racine le mot genere par un scheme.
+     * @return true si enregistre, false si racine/scheme introuvable ou deja present
+     */
+    public boolean recordDerivative(String root, String schemeName) {
+        AVLNode node = searchRoot(root);
+        Scheme  s    = compiled.get(schemeName.trim());
+        return node != null && s != null && addDerivative(node, s, null);
+    }
+
+    // Journalise puis enregistre un derive nouveau (sans verrou du moteur, voir AVLNode) ;
+    // deux threads peuvent journaliser le meme derive, la relecture en ignore le doublon.
+    // Le verrou partage derivativeLock rend l'ensemble atomique vis-a-vis de appliedLsn.
+    private boolean addDerivative(AVLNode node, Scheme s, String surface) {
+        if (node.hasDerivative(s.getId())) return false;
+        long stamp = derivativeLock.readLock();
+        try {
+            MutationJournal j = journal;
+            if (j != null) j.logDerivative(node.root, s.getId(), surface);
+            return node.addDerivative(s, surface);
+        } finally {
+            derivativeLock.unlockRead(stamp);
+        }
+    }
+
+    // Dernier LSN du journal, une fois appliques tous les derives journalises jusque-la :
+    // l'instantane ecrit ensuite les contient tous, les suivants restent dans le journal
+    private long appliedLsn(MutationJournal j) {
+        long stamp = derivativeLock.writeLock();
+        try {
+            return j.lastLsn();
+        } finally {
+            derivativeLock.unlockWrite(stamp);
+        }
+    }
+
+    /** Mots derives valides d'une racine, reconstruits a partir des schemes. */
+    public List<String> getDerivedWords(AVLNode node) {
+        return node.getDerivedWords(schemesById::get);
+    }
+
+    /** Scheme correspondant a un identifiant (y compris une version remplacee). */
+    public Scheme getSchemeById(int id) { return schemesById.get(id); }
+
     public void displayValidatedDerivatives(String root) {
         String cleaned = cleanRoot(root);
-        AVLNode node = rootTree.search(cleaned);
+        AVLNode node = findRoot(RootKey.of(cleaned));
         if (node == null) { System.out.println("  [X] Racine " + cleaned + " introuvable."); return; }
         System.out.println("  Derives valides pour " + cleaned + " :");
-        if (node.derivedWords.isEmpty()) System.out.println("    (aucun derive valide pour l'instant)");
-        else for (int i=0; i<node.derivedWords.size(); i++)
-            System.out.println("    " + (i+1) + ". " + node.derivedWords.get(i));
-        System.out.println("  Frequence totale : " + node.frequency);
+        List<String> words = getDerivedWords(node);
+        if (words.isEmpty()) System.out.println("    (aucun derive valide pour l'instant)");
+        else for (int i=0; i<words.size(); i++)
+            System.out.println("    " + (i+1) + ". " + words.get(i));
+        System.out.println("  Frequence totale : " + node.getFrequency());
     }
 
     // ── Chargement par lot ────────────────────────────────────────────────────
 
     public void loadRootsFromList(List<String> roots) {
-        int count = 0;
-        for (String r : roots) {
-            String cleaned = cleanRoot(r);
-            char[] cons = Scheme.extractConsonants(cleaned);
-            if (cons != null && cons.length == 3 && rootTree.search(cleaned) == null) {
-                rootTree.insert(cleaned);
-                count++;
+        int count = bulkLoadRoots(roots);
+        System.out.println("  [OK] " + count + " racines chargees.");
+    }
+
+    /**
+     * Chargement en masse de racines, pour les gros dictionnaires.
+     *
+     * Normalisation (cleanRoot, RootKey.of) et tri en parallele, elimination des doublons
+     * et des racines invalides, puis fusion avec l'arbre existant et
+     * reconstruction equilibree en temps lineaire (AVLTree.bulkLoad).
+     * Aucun message n'est affiche par racine.
+     *
+     * @return le nombre de racines effectivement ajoutees
+     */
+    public int bulkLoadRoots(Collection<String> roots) {
+        ArabicNormalizer norm = normalizer;
+        int[] keys = roots.parallelStream()
+                          .mapToInt(r -> RootKey.of(norm.normalize(r)))
+                          .filter(k -> k != RootKey.NONE)
+                          .toArray();
+        Arrays.parallelSort(keys);
+        return bulkLoadKeys(keys);
+    }
+
+    private int bulkLoadKeys(int[] sortedKeys) {
+        long stamp = lock.writeLock();
+        try {
+            List<Scheme> schemes = compiled.asList();
+            DenseRootTable  dense = denseRoots;
+            LexiconIndex    index = lexicon;
+            DerivativeArena store = arena;
+            if (journal != null && sortedKeys.length > 0) journal.logBulkRoots(sortedKeys);
+            int added = rootTree.bulkLoad(sortedKeys, node -> {
+                if (store != null) store.attach(node);
+                if (dense != null) dense.put(node.root, node);
+                if (index != null) index.addRoot(node.root, schemes);
+            });
+            return added;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // ── Instantanes ───────────────────────────────────────────────────────────
+
+    /**
+     * Enregistre l'etat complet du moteur (schemes, racines, derives valides,
+     * frequences, index actifs) dans un instantane binaire (voir EngineSnapshot).
+     * Les lectures restent possibles pendant l'ecriture.
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        long stamp = lock.readLock();
+        try {
+            MutationJournal j = journal;
+            EngineSnapshot.write(this, file, j != null ? j.lastLsn() : snapshotLsn);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Recree un moteur a partir d'un instantane (fichier projete en memoire). */
+    public static MorphologyEngine loadSnapshot(Path file) throws IOException {
+        return EngineSnapshot.read(file);
+    }
+
+    /**
+     * Exporte toutes les formes generees (racine × scheme) dans un lexique
+     * statique projetable en memoire et partageable entre processus (voir
+     * StaticLexicon.open).
+     *
+     * @return le nombre de formes ecrites
+     */
+    public int exportStaticLexicon(Path file) throws IOException {
+        long stamp = lock.readLock();
+        try {
+            return StaticLexicon.write(rootTree, compiled, normalizer, file);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // ── Journal ───────────────────────────────────────────────────────────────
+
+    /**
+     * Active le journal des modifications (voir MutationJournal) : insertion et
+     * suppression de racines, chargement en masse, ajout/mise a jour/suppression
+     * de schemes et enregistrement des derives valides.
+     *
+     * L'etat courant du moteur est d'abord ecrit dans un instantane de base
+     * (comme checkpoint) : recover(snapshot, file, ...) retrouve ainsi aussi
+     * les racines, schemes et derives anterieurs au journal.
+     *
+     * @param syncBatch          nombre d'enregistrements par fsync (1 = chaque modification)
+     * @param syncIntervalMillis delai maximal avant fsync des derniers enregistrements (0 = aucun)
+     */
+    public void enableJournal(Path snapshot, Path file, int syncBatch, long syncIntervalMillis) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            openJournal(file, syncBatch, syncIntervalMillis);
+            long lsn = appliedLsn(journal);
+            try {
+                EngineSnapshot.write(this, snapshot, lsn);
+            } catch (IOException | RuntimeException e) {
+                MutationJournal j = journal;
+                journal = null;
+                try {
+                    j.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
             }
+            journal.compact(lsn);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Active le journal sans instantane de base. Reserve a un moteur dans l'etat
+     * que recover() recree sans instantane : schemes par defaut, aucune racine,
+     * normaliseur par defaut (setNormalizer peut etre appele ensuite, il est journalise).
+     *
+     * @throws IllegalStateException si le moteur contient deja des racines, des
+     *         schemes modifies ou un autre normaliseur (utiliser enableJournal(snapshot, file, ...))
+     */
+    public void enableJournal(Path file, int syncBatch, long syncIntervalMillis) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            if (rootTree.size() > 0 || !defaultCatalog || normalizer.getFlags() != 0)
+                throw new IllegalStateException("Moteur non vide : un instantane de base est necessaire.");
+            openJournal(file, syncBatch, syncIntervalMillis);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Sous verrou d'ecriture
+    private void openJournal(Path file, int syncBatch, long syncIntervalMillis) throws IOException {
+        if (journal != null) throw new IllegalStateException("Journal deja actif.");
+        journal = MutationJournal.open(file, snapshotLsn, syncBatch, syncIntervalMillis);
+    }
+
+    public boolean isJournalEnabled() { return journal != null; }
+
+    /**
+     * Reprise apres arret : charge l'instantane (ou les schemes par defaut s'il
+     * n'existe pas), rejoue la fin du journal posterieure a l'instantane, puis
+     * active le journal. La duree ne depend que de la longueur du journal.
+     */
+    public static MorphologyEngine recover(Path snapshot, Path journalFile, int syncBatch,
+                                           long syncIntervalMillis) throws IOException {
+        MorphologyEngine engine = Files.exists(snapshot) ? loadSnapshot(snapshot) : new MorphologyEngine();
+        if (Files.exists(journalFile)) {
+            engine.snapshotLsn = MutationJournal.replay(journalFile, engine.snapshotLsn, engine.replayer());
+        }
+        long stamp = engine.lock.writeLock();
+        try {
+            engine.openJournal(journalFile, syncBatch, syncIntervalMillis);
+        } finally {
+            engine.lock.unlockWrite(stamp);
+        }
+        return engine;
+    }
+
+    /**
+     * Compaction : ecrit un instantane puis retire du journal tout ce qu'il
+     * contient. Les lectures et l'enregistrement de derives restent possibles :
+     * le LSN de l'instantane est lu une fois termines les ajouts de derives en
+     * cours (appliedLsn), et les derives journalises ensuite sont conserves dans
+     * le journal.
+     */
+    public void checkpoint(Path snapshot) throws IOException {
+        long stamp = lock.readLock();
+        try {
+            MutationJournal j = journal;
+            if (j == null) throw new IllegalStateException("Journal inactif.");
+            long lsn = appliedLsn(j);
+            EngineSnapshot.write(this, snapshot, lsn);
+            j.compact(lsn);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Rend durables les derniers enregistrements et ferme le journal. */
+    public void closeJournal() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            if (journal == null) return;
+            journal.close();
+            journal = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Application des enregistrements relus (journal encore inactif)
+    private MutationJournal.Visitor replayer() {
+        return new MutationJournal.Visitor() {
+            public void insertRoot(int key)         { insertKey(key); }
+            public void deleteRoot(int key)         { deleteKey(key); }
+            public void bulkRoots(int[] sortedKeys) { bulkLoadKeys(sortedKeys); }
+            public void putScheme(Scheme scheme)    { MorphologyEngine.this.putScheme(scheme); }
+            public void deleteScheme(String name)   { MorphologyEngine.this.deleteScheme(name); }
+            public void normalizer(int flags)       { setNormalizer(ArabicNormalizer.of(flags)); }
+            public void derivative(int key, int schemeId, String surface) {
+                AVLNode node = findRoot(key);
+                if (node != null && schemeId < schemesById.size())
+                    node.addDerivative(schemesById.get(schemeId), surface);
+            }
+        };
+    }
+
+    // Journal actif, ou null (tests)
+    MutationJournal journal() { return journal; }
+
+    // Registre complet des schemes, y compris ceux remplaces ou supprimes
+    List<Scheme> schemeRegistry() { return schemesById; }
+
+    // Le scheme fait-il partie du catalogue actuel ?
+    boolean isActiveScheme(Scheme s) { return schemeTable.get(s.getName()) == s; }
+
+    // Restauration d'un scheme (dans l'ordre des identifiants), sans recompilation
+    void restoreScheme(Scheme s, boolean active) {
+        register(s);
+        if (active) schemeTable.put(s.getName(), s);
+    }
+
+    // Restauration des racines (triees) sur un moteur neuf
+    void restoreRoots(AVLNode[] nodes, int n) {
+        long stamp = lock.writeLock();
+        try {
+            recompileSchemes();
+            rootTree.loadSorted(nodes, n);
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        System.out.println("  [OK] " + count + " racines chargees.");
     }
 
     // ── Utilitaires ───────────────────────────────────────────────────────────
 
+    /**
+     * Attribue au scheme son identifiant stable. Une mise a jour cree un nouveau
+     * scheme (nouvel identifiant) : l'ancien reste dans le registre afin que les
+     * derives deja enregistres avec lui restent reconstructibles.
+     */
+    private Scheme register(Scheme s) {
+        s.id = schemesById.size();
+        schemesById.add(s);
+        return s;
+    }
+
+    // Lecture sous verrou partage (plusieurs lecteurs simultanes)
+    private <T> T readLocked(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Cles de toutes les racines indexees, en ordre croissant
+    private List<Integer> rootKeys() {
+        List<Integer> keys = new ArrayList<>(rootTree.size());
+        rootTree.forEachNode(n -> keys.add(n.root));
+        return keys;
+    }
+
+    /** Recompile l'ensemble des schemes apres toute modification de la table (fige ou non). */
+    private void recompileSchemes() {
+        compiled = new CompiledSchemeSet(schemeTable.getAllSchemes(), schemesFrozen, normalizer);
+    }
+
     public String cleanRoot(String root) {
-        if (root == null) return "";
         // Retire espaces, tirets, et les diacritiques pour avoir la forme canonique
-        StringBuilder sb = new StringBuilder();
-        for (char c : root.toCharArray()) {
-            int code = (int) c;
-            if ((code >= 0x0621 && code <= 0x063A) || (code >= 0x0641 && code <= 0x064A)) {
-                sb.append(c);
-            }
+        return normalizer.normalize(root);
+    }
+
+    /**
+     * Remplace le normaliseur utilise par cleanRoot et par toute normalisation
+     * de mot : analyse (analyze, analyzeWord, analyzeWordSegmented),
+     * validation, lexique inverse et lexique statique. Les lettres fixes des
+     * schemes et les affixes du segmenteur sont replies de la meme facon a la
+     * compilation. Le normaliseur est journalise et ecrit dans l'instantane.
+     *
+     * Les cles des racines dependent du normaliseur : il ne peut etre change
+     * que sur un moteur sans racine.
+     *
+     * @throws IllegalStateException si le moteur contient des racines
+     */
+    public void setNormalizer(ArabicNormalizer normalizer) {
+        Objects.requireNonNull(normalizer);
+        long stamp = lock.writeLock();
+        try {
+            if (rootTree.size() > 0)
+                throw new IllegalStateException("Normaliseur modifiable seulement sur un moteur sans racine.");
+            if (journal != null) journal.logNormalizer(normalizer.getFlags());
+            this.normalizer      = normalizer;
+            this.foldedSegmenter = segmenter.normalized(normalizer);
+            if (lexicon != null) lexicon = new LexiconIndex(normalizer);
+            recompileSchemes();
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        return sb.toString();
     }
 
+    public ArabicNormalizer getNormalizer() { return normalizer; }
+
     // ── Getters ───────────────────────────────────────────────────────────────
-    public int getRootCount()            { return rootTree.size(); }
-    public int getSchemeCount()          { return schemeTable.getSize(); }
+    public int getRootCount()            { return readLocked(rootTree::size); }
+    public int getSchemeCount()          { return compiled.size(); }
     public AVLTree getRootTree()         { return rootTree; }
-    public SchemeHashTable getSchemeTable() { return schemeTable; }
+    public SchemeStore getSchemeTable()  { return schemeTable; }
+    public SchemeHash getSchemeHash()    { return schemeHash; }
+    public HashTableStats getSchemeTableStats() { return HashTableStats.of(schemeTable); }
+    public CompiledSchemeSet getCompiledSchemes() { return compiled; }
 }
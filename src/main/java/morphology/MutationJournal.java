@@ -0,0 +1,408 @@
+package morphology;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Journal des modifications du moteur (write-ahead log), en ajout seul.
+ *
+ * Format (gros-boutiste) :
+ *   en-tete      : int MAGIC "MJNL" | short VERSION | short 0
+ *   enregistrement : int longueur du corps | int CRC32 du corps | corps
+ *   corps        : long numero de sequence (LSN) | byte type | donnees
+ *
+ *   INSERT_ROOT   int cle          DELETE_ROOT   int cle
+ *   BULK_ROOTS    int n, n × int cle (triees)
+ *   PUT_SCHEME    chaine nom | chaine categorie | chaine description |
+ *                 byte L | L elements (byte slot 1..3, ou 0 + char lettre)
+ *   DELETE_SCHEME chaine nom
+ *   DERIVATIVE    int cle | int id scheme | byte 0/1 | [chaine surface]
+ *   NORMALIZER    int drapeaux (ArabicNormalizer.getFlags)
+ *   chaine        short longueur en octets + UTF-8
+ *
+ * Validation groupee : les enregistrements sont accumules dans un tampon et
+ * rendus durables (ecriture + force) tous les syncBatch enregistrements, et au
+ * plus tard toutes les syncIntervalMillis ms par un thread de fond. syncBatch = 1
+ * rend chaque modification durable avant le retour de l'appel ; une valeur plus
+ * grande amortit le fsync sur plusieurs modifications, au prix de la perte
+ * possible des derniers enregistrements en cas d'arret brutal.
+ *
+ * Ecriture anticipee : le moteur journalise chaque modification avant de
+ * l'appliquer. Si l'ajout echoue (UncheckedIOException), l'etat du moteur est
+ * inchange et le journal passe en echec : toute modification suivante est
+ * refusee, le fichier pouvant se terminer par un enregistrement incomplet.
+ *
+ * Relecture : replay() s'arrete au premier enregistrement incomplet ou dont le
+ * CRC est faux (fin de journal dechiree par un arret brutal) ; open() tronque
+ * le fichier a cet endroit avant d'y ajouter.
+ *
+ * Compaction : le moteur ecrit un instantane (EngineSnapshot) qui porte le LSN
+ * du dernier enregistrement qu'il contient, puis compact() ne garde que la
+ * suite du journal. A la reprise, les enregistrements de LSN inferieur ou egal
+ * a celui de l'instantane sont ignores : un arret entre les deux etapes ne
+ * rejoue rien deux fois. Si la compaction echoue, l'ancien journal reste en
+ * place et ouvert.
+ */
+public final class MutationJournal implements Closeable {
+
+    static final int   MAGIC   = 0x4D4A4E4C; // "MJNL"
+    static final short VERSION = 1;
+    static final int   HEADER  = 8;
+
+    static final byte INSERT_ROOT   = 1;
+    static final byte DELETE_ROOT   = 2;
+    static final byte BULK_ROOTS    = 3;
+    static final byte PUT_SCHEME    = 4;
+    static final byte DELETE_SCHEME = 5;
+    static final byte DERIVATIVE    = 6;
+    static final byte NORMALIZER    = 7;
+
+    /** Application des enregistrements relus (voir MorphologyEngine.recover). */
+    interface Visitor {
+        void insertRoot(int key);
+        void deleteRoot(int key);
+        void bulkRoots(int[] sortedKeys);
+        void putScheme(Scheme scheme);
+        void deleteScheme(String name);
+        void derivative(int key, int schemeId, String surface);
+        void normalizer(int flags);
+    }
+
+    private final Path        file;
+    private FileChannel       ch;
+    private final ByteBuffer  out = ByteBuffer.allocateDirect(1 << 16);
+    private ByteBuffer        body = ByteBuffer.allocate(256);
+    private final CRC32       crc = new CRC32();
+    private final int         syncBatch;
+    private final ScheduledExecutorService syncer;
+
+    private long lastLsn;
+    private int  unsynced;    // enregistrements non encore forces sur disque
+    private IOException failure; // premiere erreur d'ecriture (journal en echec)
+
+    private MutationJournal(Path file, FileChannel ch, long lastLsn, int syncBatch, long syncIntervalMillis) {
+        this.file      = file;
+        this.ch        = ch;
+        this.lastLsn   = lastLsn;
+        this.syncBatch = Math.max(1, syncBatch);
+        if (syncIntervalMillis > 0) {
+            syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "journal-sync");
+                t.setDaemon(true);
+                return t;
+            });
+            syncer.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+
+    /**
+     * Ouvre (ou cree) un journal pour y ajouter des enregistrements. Une fin de
+     * fichier dechiree est tronquee.
+     *
+     * @param minLsn LSN minimal du prochain enregistrement moins un (LSN de l'instantane)
+     */
+    public static MutationJournal open(Path file, long minLsn, int syncBatch, long syncIntervalMillis)
+            throws IOException {
+        long[] end = {HEADER, minLsn};
+        if (Files.exists(file) && Files.size(file) > 0) {
+            scan(file, Long.MIN_VALUE, null, end);
+        }
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (ch.size() < HEADER) {
+            ch.truncate(0);
+            writeHeader(ch);
+        } else {
+            ch.truncate(end[0]);
+        }
+        ch.position(end[0]);
+        return new MutationJournal(file, ch, Math.max(end[1], minLsn), syncBatch, syncIntervalMillis);
+    }
+
+    private static void writeHeader(FileChannel ch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+        while (header.hasRemaining()) ch.write(header);
+    }
+
+    // ── Enregistrements ───────────────────────────────────────────────────────
+
+    public synchronized void logInsertRoot(int key) {
+        begin(INSERT_ROOT);
+        body.putInt(key);
+        commit();
+    }
+
+    public synchronized void logDeleteRoot(int key) {
+        begin(DELETE_ROOT);
+        body.putInt(key);
+        commit();
+    }
+
+    public synchronized void logBulkRoots(int[] sortedKeys) {
+        begin(BULK_ROOTS);
+        ensure(4 + 4 * sortedKeys.length);
+        body.putInt(sortedKeys.length);
+        for (int key : sortedKeys) body.putInt(key);
+        commit();
+    }
+
+    public synchronized void logPutScheme(Scheme s) {
+        begin(PUT_SCHEME);
+        putString(s.getName());
+        putString(s.getCategory());
+        putString(s.getDescription());
+        ensure(1 + 3 * s.length());
+        body.put((byte) s.length());
+        for (int i = 0; i < s.length(); i++) {
+            body.put((byte) s.slotAt(i));
+            if (s.slotAt(i) == 0) body.putChar(s.letterAt(i));
+        }
+        commit();
+    }
+
+    public synchronized void logDeleteScheme(String name) {
+        begin(DELETE_SCHEME);
+        putString(name);
+        commit();
+    }
+
+    public synchronized void logDerivative(int key, int schemeId, String surface) {
+        begin(DERIVATIVE);
+        body.putInt(key).putInt(schemeId).put((byte) (surface != null ? 1 : 0));
+        if (surface != null) putString(surface);
+        commit();
+    }
+
+    public synchronized void logNormalizer(int flags) {
+        begin(NORMALIZER);
+        body.putInt(flags);
+        commit();
+    }
+
+    private void begin(byte type) {
+        if (failure != null) throw new UncheckedIOException("Journal en echec : " + file, failure);
+        body.clear();
+        body.putLong(lastLsn + 1).put(type);
+    }
+
+    private void ensure(int n) {
+        if (body.remaining() >= n) return;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(body.capacity() * 2, body.position() + n));
+        body.flip();
+        body = bigger.put(body);
+    }
+
+    private void putString(String s) {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("Chaine trop longue pour le journal.");
+        ensure(2 + bytes.length);
+        body.putShort((short) bytes.length).put(bytes);
+    }
+
+    // Ajoute le corps prepare au tampon ; force le disque tous les syncBatch enregistrements
+    private void commit() {
+        try {
+            body.flip();
+            crc.reset();
+            crc.update(body.duplicate());
+            if (out.remaining() < 8 + body.remaining()) drain();
+            if (out.remaining() < 8 + body.remaining()) {
+                ByteBuffer frame = ByteBuffer.allocate(8 + body.remaining());
+                frame.putInt(body.remaining()).putInt((int) crc.getValue()).put(body).flip();
+                while (frame.hasRemaining()) ch.write(frame);
+            } else {
+                out.putInt(body.remaining()).putInt((int) crc.getValue()).put(body);
+            }
+            lastLsn++;
+            if (++unsynced >= syncBatch) sync();
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Ecriture du journal impossible : " + file, e);
+        }
+    }
+
+    private void drain() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) ch.write(out);
+        out.clear();
+    }
+
+    /** Rend durables tous les enregistrements deja ajoutes. */
+    public synchronized void sync() throws IOException {
+        try {
+            drain();
+            if (unsynced > 0) ch.force(false);
+            unsynced = 0;
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+            throw e;
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("  [X] Synchronisation du journal : " + e.getMessage());
+        }
+    }
+
+    /** LSN du dernier enregistrement ajoute. */
+    public synchronized long lastLsn() { return lastLsn; }
+
+    // Canal du fichier (tests : erreur d'ecriture simulee en le fermant)
+    synchronized FileChannel channel() { return ch; }
+
+    // ── Compaction ────────────────────────────────────────────────────────────
+
+    /**
+     * Retire du journal les enregistrements de LSN inferieur ou egal a uptoLsn
+     * (deja contenus dans un instantane). La suite est recopiee dans un nouveau
+     * fichier qui remplace l'ancien par renommage atomique. En cas d'echec, le
+     * fichier temporaire est supprime et le journal reste ouvert sur l'ancien
+     * fichier.
+     */
+    public synchronized void compact(long uptoLsn) throws IOException {
+        sync();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel dst = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeHeader(dst);
+                long[] end = {HEADER, uptoLsn};
+                long from = scan(file, uptoLsn, null, end);
+                if (from < 0) from = end[0];
+                ch.transferTo(from, end[0] - from, dst);
+                dst.force(true);
+            }
+            ch.close();
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            EngineSnapshot.deleteQuietly(tmp, e);
+            throw e;
+        } finally {
+            if (!ch.isOpen()) {
+                ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                ch.position(ch.size());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (syncer != null) syncer.shutdown();
+        synchronized (this) {
+            sync();
+            ch.close();
+        }
+    }
+
+    // ── Relecture ─────────────────────────────────────────────────────────────
+
+    /**
+     * Rejoue les enregistrements de LSN strictement superieur a afterLsn.
+     * @return le LSN du dernier enregistrement valide du journal (ou afterLsn)
+     */
+    static long replay(Path file, long afterLsn, Visitor visitor) throws IOException {
+        long[] end = {HEADER, afterLsn};
+        scan(file, afterLsn, visitor, end);
+        return end[1];
+    }
+
+    /**
+     * Parcourt les enregistrements valides ; applique ceux de LSN > afterLsn.
+     * end[0] recoit la position de fin des donnees valides, end[1] le dernier LSN.
+     * @return la position du premier enregistrement de LSN > afterLsn, ou -1
+     */
+    private static long scan(Path file, long afterLsn, Visitor visitor, long[] end) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER) return -1;
+            ByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (in.getInt() != MAGIC) throw new IOException("Journal non reconnu : " + file);
+            short version = in.getShort();
+            if (version != VERSION) throw new IOException("Version de journal non supportee : " + version);
+            in.getShort();
+
+            CRC32 check = new CRC32();
+            long  first = -1;
+            while (in.remaining() >= 8) {
+                int start = in.position();
+                int len   = in.getInt();
+                int sum   = in.getInt();
+                if (len < 9 || len > in.remaining()) break;               // fin dechiree
+                ByteBuffer record = in.slice(in.position(), len);
+                check.reset();
+                check.update(record.duplicate());
+                if ((int) check.getValue() != sum) break;                 // fin corrompue
+                in.position(in.position() + len);
+                long lsn = record.getLong();
+                end[0] = in.position();
+                end[1] = Math.max(end[1], lsn);
+                if (lsn <= afterLsn) continue;
+                if (first < 0) first = start;
+                if (visitor != null) apply(record, visitor);
+            }
+            return first;
+        }
+    }
+
+    private static void apply(ByteBuffer r, Visitor v) throws IOException {
+        try {
+            byte type = r.get();
+            switch (type) {
+                case INSERT_ROOT   -> v.insertRoot(r.getInt());
+                case DELETE_ROOT   -> v.deleteRoot(r.getInt());
+                case BULK_ROOTS    -> {
+                    int[] keys = new int[r.getInt()];
+                    for (int i = 0; i < keys.length; i++) keys[i] = r.getInt();
+                    v.bulkRoots(keys);
+                }
+                case PUT_SCHEME    -> {
+                    String name = getString(r), category = getString(r), description = getString(r);
+                    Object[] skeleton = new Object[r.get() & 0xFF];
+                    for (int p = 0; p < skeleton.length; p++) {
+                        int slot = r.get();
+                        skeleton[p] = slot == 0 ? (Object) r.getChar() : (Object) slot;
+                    }
+                    v.putScheme(new Scheme(name, skeleton, category, description));
+                }
+                case DELETE_SCHEME -> v.deleteScheme(getString(r));
+                case DERIVATIVE    -> {
+                    int key = r.getInt(), schemeId = r.getInt();
+                    v.derivative(key, schemeId, r.get() != 0 ? getString(r) : null);
+                }
+                case NORMALIZER    -> {
+                    int flags = r.getInt();
+                    if ((flags & ~ArabicNormalizer.ALL_FLAGS) != 0) throw new IOException("Normalisation inconnue : " + flags);
+                    v.normalizer(flags);
+                }
+                default -> throw new IOException("Type d'enregistrement inconnu : " + type);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Enregistrement de journal invalide.", e);
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
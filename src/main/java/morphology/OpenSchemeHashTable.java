@@ -0,0 +1,228 @@
+package morphology;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Variante de SchemeHashTable a adressage ouvert (sondage lineaire).
+ *
+ * Pas de maillons : trois tableaux paralleles indexes par la case,
+ *   hashes[i] → hachage de la cle (bit de signe force : 0 = case vide)
+ *   keys[i]   → nom arabe du scheme
+ *   values[i] → scheme
+ * Une recherche lit des cases contigues et ne compare les chaines que si les
+ * hachages sont egaux : pas d'allocation, pas de parcours de liste chainee.
+ *
+ * Suppression par decalage arriere (backward shift) : aucune pierre tombale,
+ * les sequences de sondage restent aussi courtes qu'apres une insertion.
+ *
+ * Facteur de charge maximal : 0.7 (le sondage lineaire se degrade plus vite
+ * que le chainage quand la table se remplit). Capacite : puissance de deux.
+ *
+ * Non synchronisee. Le moteur s'en sert comme index par nom, immuable une fois
+ * construit, dans CompiledSchemeSet.
+ */
+public class OpenSchemeHashTable implements SchemeStore {
+
+    private static final int    MIN_CAPACITY = 16;
+    private static final double LOAD_FACTOR  = 0.7;
+    private static final int    USED         = 0x80000000; // marque d'une case occupee
+
+    private int[]    hashes;
+    private String[] keys;
+    private Scheme[] values;
+    private int      size;
+    private int      mask;      // capacite - 1
+
+    public OpenSchemeHashTable() {
+        this(0);
+    }
+
+    /**
+     * @param expected nombre de schemes attendus : la table est dimensionnee pour
+     *                 les contenir sans redimensionnement
+     */
+    public OpenSchemeHashTable(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    // Plus petite puissance de deux contenant 'count' cles sous le facteur de charge
+    private static int capacityFor(int count) {
+        int needed = (int) Math.ceil(count / LOAD_FACTOR) + 1;
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        keys   = new String[capacity];
+        values = new Scheme[capacity];
+        mask   = capacity - 1;
+    }
+
+    // --- Fonction de hachage -----------------------------------------------------
+
+    /**
+     * Hachage polynomial (comme SchemeHashTable), marque comme occupe.
+     * Lu par charAt : aucune copie de la cle.
+     */
+    private static int hash(String key) {
+        int hash = 0;
+        for (int i = 0; i < key.length(); i++) {
+            hash = hash * 31 + key.charAt(i);
+        }
+        return hash | USED;
+    }
+
+    // Case de depart : bits forts melanges aux bits faibles avant le masque
+    private int home(int h) {
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // Case de la cle, ou -1 si absente
+    private int find(String key) {
+        int h = hash(key);
+        for (int i = home(h); hashes[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] == h && keys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    // --- Operations CRUD ---------------------------------------------------------
+
+    @Override
+    public void put(String key, Scheme scheme) {
+        if (size + 1 > LOAD_FACTOR * (mask + 1)) resize(capacityFor(size + 1));
+        insert(hash(key), key, scheme);
+    }
+
+    /**
+     * Insere chaque scheme sous son nom, avec au plus un redimensionnement.
+     */
+    public void putAll(Collection<Scheme> schemes) {
+        int capacity = capacityFor(size + schemes.size());
+        if (capacity > mask + 1) resize(capacity);
+        for (Scheme s : schemes) insert(hash(s.getName()), s.getName(), s);
+    }
+
+    private void insert(int h, String key, Scheme scheme) {
+        int i = home(h);
+        for (; hashes[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] == h && keys[i].equals(key)) {
+                values[i] = scheme; // mise a jour
+                return;
+            }
+        }
+        hashes[i] = h;
+        keys[i]   = key;
+        values[i] = scheme;
+        size++;
+    }
+
+    /**
+     * Recupere un scheme par sa cle.
+     * @return le Scheme ou null si absent
+     */
+    @Override
+    public Scheme get(String key) {
+        int i = find(key);
+        return i >= 0 ? values[i] : null;
+    }
+
+    /**
+     * Supprime un scheme ; les cles suivantes de la sequence de sondage sont
+     * ramenees vers leur case de depart.
+     * @return true si supprime, false si absent
+     */
+    @Override
+    public boolean delete(String key) {
+        int hole = find(key);
+        if (hole < 0) return false;
+        for (int i = (hole + 1) & mask; hashes[i] != 0; i = (i + 1) & mask) {
+            // distance de i a sa case de depart, comparee a celle du trou
+            int fromHome = (i - home(hashes[i])) & mask;
+            if (fromHome >= ((i - hole) & mask)) {
+                hashes[hole] = hashes[i];
+                keys[hole]   = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        hashes[hole] = 0;
+        keys[hole]   = null;
+        values[hole] = null;
+        size--;
+        return true;
+    }
+
+    @Override
+    public List<Scheme> getAllSchemes() {
+        List<Scheme> list = new ArrayList<>(size);
+        for (int i = 0; i <= mask; i++) if (hashes[i] != 0) list.add(values[i]);
+        return list;
+    }
+
+    @Override
+    public List<String> getAllKeys() {
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i <= mask; i++) if (hashes[i] != 0) list.add(keys[i]);
+        return list;
+    }
+
+    // --- Redimensionnement -------------------------------------------------------
+
+    private void resize(int capacity) {
+        int[]    oldHashes = hashes;
+        String[] oldKeys   = keys;
+        Scheme[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != 0) insert(oldHashes[i], oldKeys[i], oldValues[i]);
+        }
+    }
+
+    // --- Statistiques ------------------------------------------------------------
+
+    /** Distance maximale entre une cle et sa case de depart (0 = aucune collision). */
+    public int getMaxProbeLength() {
+        int max = 0;
+        for (int i = 0; i <= mask; i++) {
+            if (hashes[i] != 0) max = Math.max(max, (i - home(hashes[i])) & mask);
+        }
+        return max;
+    }
+
+    /** Distance moyenne entre une cle et sa case de depart. */
+    public double getAverageProbeLength() {
+        if (size == 0) return 0;
+        long total = 0;
+        for (int i = 0; i <= mask; i++) {
+            if (hashes[i] != 0) total += (i - home(hashes[i])) & mask;
+        }
+        return (double) total / size;
+    }
+
+    @Override
+    public void display() {
+        SchemeStore.super.display();
+        System.out.printf("  Sondage : moyen %.2f | maximal %d%n",
+                getAverageProbeLength(), getMaxProbeLength());
+    }
+
+    @Override
+    public int getSize()     { return size; }
+
+    @Override
+    public int getCapacity() { return mask + 1; }
+
+    /** Nombre de cles dans la case idx (0 ou 1 en adressage ouvert). */
+    @Override
+    public int getBucketSize(int idx) {
+        return idx >= 0 && idx <= mask && hashes[idx] != 0 ? 1 : 0;
+    }
+
+    /** Case de depart de la cle. */
+    @Override
+    public int bucketIndexOf(String key) { return home(hash(key)); }
+}
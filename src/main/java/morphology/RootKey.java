@@ -0,0 +1,85 @@
+package morphology;
+
+/**
+ * Codage d'une racine trilitere dans un entier de 32 bits.
+ *
+ * Chaque consonne acceptee par Scheme.isConsonant (U+0621 a U+064A) est codee
+ * sur 6 bits par son decalage depuis U+0620 (valeurs 1 a 42) :
+ *
+ *   cle = (C1 - 0x620) << 12 | (C2 - 0x620) << 6 | (C3 - 0x620)
+ *
+ * Le codage est monotone : l'ordre des cles est exactement l'ordre
+ * lexicographique des racines (String.compareTo), et une cle valide est
+ * toujours strictement positive. NONE (-1) represente l'absence de racine.
+ */
+public final class RootKey {
+
+    /** Valeur sentinelle : pas de racine trilitere. */
+    public static final int NONE = -1;
+
+    /** Nombre de cles possibles (3 lettres de 6 bits). */
+    public static final int SPACE = 1 << 18;
+
+    private static final char BASE = '\u0620'; // juste avant hamza (U+0621)
+
+    private RootKey() { }
+
+    /** Code 6 bits d'une consonne (1..42), a n'appeler que si Scheme.isConsonant(c). */
+    public static int code(char c) { return c - BASE; }
+
+    /** Consonne correspondant a un code 6 bits. */
+    public static char letter(int code) { return (char) (BASE + code); }
+
+    /** Empaquette trois consonnes (deja filtrees par Scheme.isConsonant). */
+    public static int pack(char c1, char c2, char c3) {
+        return code(c1) << 12 | code(c2) << 6 | code(c3);
+    }
+
+    /**
+     * Cle d'une racine a partir de ses consonnes.
+     * @return la cle, ou NONE si le tableau ne contient pas exactement 3 consonnes
+     */
+    public static int of(char[] cons, int n) {
+        if (cons == null || n != 3) return NONE;
+        return pack(cons[0], cons[1], cons[2]);
+    }
+
+    /**
+     * Cle d'une racine ecrite librement (diacritiques et separateurs ignores).
+     * @return la cle, ou NONE si la racine ne contient pas exactement 3 consonnes
+     */
+    public static int of(CharSequence root) {
+        if (root == null) return NONE;
+        int  n = 0;
+        char c1 = 0, c2 = 0, c3 = 0;
+        for (int i = 0; i < root.length(); i++) {
+            char c = root.charAt(i);
+            if (!Scheme.isConsonant(c)) continue;
+            switch (n++) {
+                case 0  -> c1 = c;
+                case 1  -> c2 = c;
+                case 2  -> c3 = c;
+                default -> { return NONE; }
+            }
+        }
+        return n == 3 ? pack(c1, c2, c3) : NONE;
+    }
+
+    /** i-eme consonne (0, 1 ou 2) d'une cle. */
+    public static char letterAt(int key, int i) {
+        return letter((key >>> (12 - 6 * i)) & 0x3F);
+    }
+
+    /** Ecrit les trois consonnes d'une cle dans dst[off..off+2]. */
+    public static void decode(int key, char[] dst, int off) {
+        dst[off]     = letterAt(key, 0);
+        dst[off + 1] = letterAt(key, 1);
+        dst[off + 2] = letterAt(key, 2);
+    }
+
+    /** Forme textuelle de la racine (ex: كتب). */
+    public static String toString(int key) {
+        if (key == NONE) return null;
+        return new String(new char[]{letterAt(key, 0), letterAt(key, 1), letterAt(key, 2)});
+    }
+}
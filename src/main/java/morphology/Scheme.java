@@ -1,7 +1,6 @@
 package morphology;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Scheme morphologique arabe.
@@ -17,19 +16,65 @@ import java.util.List;
  *   Scheme فاعل  → skeleton = [1, 'ا', 2, 3]
  *   Racine كتب   → consonnes = ['ك','ت','ب']
  *   Resultat     → ك + ا + ت + ب = كاتب
+ *
+ * Forme compilee : a la construction, le squelette est traduit en deux tableaux
+ * primitifs paralleles, utilises par apply et extractRoot (aucun instanceof ni
+ * unboxing dans la boucle interne) :
+ *   slots[i]   = 1, 2 ou 3 pour une consonne de la racine, 0 pour une lettre fixe
+ *   letters[i] = la lettre fixe, ou 0 pour une consonne de la racine
+ * Seule cette forme compilee est conservee : getSkeleton() reconstruit la
+ * liste de tokens a la demande, sans garder d'Integer ni de Character en memoire.
  */
 public class Scheme {
 
     private final String       name;
-    private final Object[]     skeleton;  // Integer(1/2/3) ou Character
     private final String       category;
     private final String       description;
 
+    // Forme compilee du squelette
+    private final byte[]       slots;
+    private final char[]       letters;
+
+    // Identifiant attribue par le moteur a l'enregistrement (-1 sinon)
+    int                        id = -1;
+
     public Scheme(String name, Object[] skeleton, String category, String description) {
         this.name        = name;
-        this.skeleton    = skeleton;
         this.category    = category;
         this.description = description;
+
+        this.slots   = new byte[skeleton.length];
+        this.letters = new char[skeleton.length];
+        for (int i = 0; i < skeleton.length; i++) {
+            if (skeleton[i] instanceof Integer) slots[i]   = (byte) (int) (Integer) skeleton[i];
+            else                                letters[i] = (Character) skeleton[i];
+        }
+    }
+
+    private Scheme(Scheme source, char[] letters) {
+        this.name        = source.name;
+        this.category    = source.category;
+        this.description = source.description;
+        this.slots       = source.slots;
+        this.letters     = letters;
+        this.id          = source.id;
+    }
+
+    /**
+     * Forme de reconnaissance du scheme pour un normaliseur : les lettres fixes
+     * sont repliees comme celles des mots analyses (ة → ه avec FOLD_TA_MARBUTA).
+     * Meme nom et meme identifiant ; this si aucune lettre ne change.
+     */
+    Scheme normalized(ArabicNormalizer normalizer) {
+        char[] folded = null;
+        for (int i = 0; i < letters.length; i++) {
+            if (slots[i] != 0) continue;
+            char f = normalizer.foldLetter(letters[i]);
+            if (f == letters[i]) continue;
+            if (folded == null) folded = letters.clone();
+            folded[i] = f;
+        }
+        return folded == null ? this : new Scheme(this, folded);
     }
 
     // ── Generation ────────────────────────────────────────────────────────────
@@ -41,16 +86,14 @@ public class Scheme {
      */
     public String apply(char[] consonants) {
         if (consonants == null || consonants.length < 2) return null;
-        StringBuilder sb = new StringBuilder();
-        for (Object token : skeleton) {
-            if (token instanceof Integer) {
-                int idx = (Integer) token - 1;
-                if (idx < consonants.length) sb.append(consonants[idx]);
-            } else {
-                sb.append((Character) token);
-            }
+        char[] out = new char[slots.length];
+        int    n   = 0;
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            if (slot == 0)                         out[n++] = letters[i];
+            else if (slot - 1 < consonants.length) out[n++] = consonants[slot - 1];
         }
-        return sb.toString();
+        return new String(out, 0, n);
     }
 
     // ── Validation inverse ────────────────────────────────────────────────────
@@ -63,36 +106,62 @@ public class Scheme {
      * @return les 3 consonnes extraites [C1,C2,C3], ou null si incompatible
      */
     public char[] extractRoot(String word) {
-        char[] wordCons = extractConsonants(word);
-        if (wordCons == null || wordCons.length != skeleton.length) return null;
+        return extractRoot(extractConsonants(word));
+    }
 
-        char c1 = 0, c2 = 0, c3 = 0;
+    /**
+     * Variante de extractRoot travaillant sur des consonnes deja extraites,
+     * pour eviter de refaire l'extraction pour chaque scheme teste.
+     *
+     * @param wordCons les consonnes du mot (resultat de extractConsonants)
+     * @return les 3 consonnes extraites [C1,C2,C3], ou null si incompatible
+     */
+    public char[] extractRoot(char[] wordCons) {
+        if (wordCons == null) return null;
+        int key = matchRoot(wordCons, wordCons.length);
+        if (key == RootKey.NONE) return null;
+        char[] root = new char[3];
+        RootKey.decode(key, root, 0);
+        return root;
+    }
 
-        for (int i = 0; i < skeleton.length; i++) {
-            Object token = skeleton[i];
-            char   wc    = wordCons[i];
+    /**
+     * Version sans allocation de extractRoot : la racine est renvoyee empaquetee.
+     *
+     * @param wordCons tampon contenant les consonnes du mot
+     * @param n        nombre de consonnes utiles dans le tampon
+     * @return la cle RootKey de la racine, ou RootKey.NONE si incompatible
+     */
+    public int matchRoot(char[] wordCons, int n) {
+        if (n != slots.length) return RootKey.NONE;
 
-            if (token instanceof Integer) {
-                int pos = (Integer) token;
-                if (pos == 1) {
+        char c1 = 0, c2 = 0, c3 = 0;
+
+        for (int i = 0; i < n; i++) {
+            char wc = wordCons[i];
+            switch (slots[i]) {
+                case 0 -> {
+                    // Lettre fixe : doit correspondre exactement
+                    if (letters[i] != wc) return RootKey.NONE;
+                }
+                case 1 -> {
                     if (c1 == 0) c1 = wc;
-                    else if (c1 != wc) return null;
-                } else if (pos == 2) {
+                    else if (c1 != wc) return RootKey.NONE;
+                }
+                case 2 -> {
                     if (c2 == 0) c2 = wc;
-                    else if (c2 != wc) return null;
-                } else if (pos == 3) {
+                    else if (c2 != wc) return RootKey.NONE;
+                }
+                case 3 -> {
                     if (c3 == 0) c3 = wc;
-                    else if (c3 != wc) return null;
+                    else if (c3 != wc) return RootKey.NONE;
                 }
-            } else {
-                // Lettre fixe : doit correspondre exactement
-                char fixed = (Character) token;
-                if (fixed != wc) return null;
+                default -> { }
             }
         }
 
-        if (c1 == 0 || c2 == 0 || c3 == 0) return null;
-        return new char[]{c1, c2, c3};
+        if (c1 == 0 || c2 == 0 || c3 == 0) return RootKey.NONE;
+        return RootKey.pack(c1, c2, c3);
     }
 
     // ── Utilitaire : extraction des consonnes ─────────────────────────────────
@@ -103,34 +172,63 @@ public class Scheme {
      */
     public static char[] extractConsonants(String word) {
         if (word == null) return null;
-        List<Character> result = new ArrayList<>();
-        for (char c : word.toCharArray()) {
-            int code = (int) c;
-            // Lettres arabes consonantiques (excluant les diacritiques)
-            if ((code >= 0x0621 && code <= 0x063A) || (code >= 0x0641 && code <= 0x064A)) {
-                result.add(c);
-            }
-            // On ignore tout le reste (diacritiques, espaces, etc.)
+        char[] buf = new char[word.length()];
+        int n = extractConsonants(word, 0, word.length(), buf);
+        if (n < 0) { // ligatures (formes de presentation) : plus de lettres que de caracteres
+            buf = new char[ArabicNormalizer.capacity(word.length())];
+            n = extractConsonants(word, 0, word.length(), buf);
         }
-        if (result.isEmpty()) return null;
-        char[] arr = new char[result.size()];
-        for (int i = 0; i < arr.length; i++) arr[i] = result.get(i);
-        return arr;
+        if (n <= 0) return null;
+        return n == buf.length ? buf : Arrays.copyOf(buf, n);
+    }
+
+    /**
+     * Version sans allocation : ecrit les consonnes de src[off..off+len) dans
+     * un tampon fourni (et reutilisable) par l'appelant.
+     *
+     * @return le nombre de consonnes ecrites, ou -1 si le tampon est trop petit
+     *         (le mot ne peut alors correspondre a aucun scheme plus court)
+     */
+    public static int extractConsonants(CharSequence src, int off, int len, char[] dst) {
+        // Table de ArabicNormalizer : formes de presentation repliees, tout le
+        // reste (diacritiques, espaces, etc.) ignore
+        return ArabicNormalizer.DEFAULT.normalize(src, off, len, dst);
+    }
+
+    /** Lettres arabes consonantiques (excluant les diacritiques). */
+    public static boolean isConsonant(char c) {
+        return (c >= '\u0621' && c <= '\u063A') || (c >= '\u0641' && c <= '\u064A');
     }
 
     // ── Getters ───────────────────────────────────────────────────────────────
 
     public String   getName()        { return name; }
-    public Object[] getSkeleton()    { return skeleton; }
     public String   getCategory()    { return category; }
     public String   getDescription() { return description; }
+    public int      getId()          { return id; }
+
+    /** Longueur du squelette compile (nombre de lettres du mot genere). */
+    public int  length()          { return slots.length; }
+    /** 1, 2 ou 3 si la position i est une consonne de la racine, 0 sinon. */
+    public int  slotAt(int i)     { return slots[i]; }
+    /** Lettre fixe en position i, ou 0 si c'est une consonne de la racine. */
+    public char letterAt(int i)   { return letters[i]; }
+
+    /** Squelette sous forme de tokens : Integer 1/2/3 ou Character (copie). */
+    public Object[] getSkeleton() {
+        Object[] skeleton = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            skeleton[i] = slots[i] != 0 ? (Object) (int) slots[i] : (Object) letters[i];
+        }
+        return skeleton;
+    }
 
     /** Representation lisible du squelette consonantique */
     public String getSkeletonStr() {
         StringBuilder sb = new StringBuilder();
-        for (Object t : skeleton) {
-            if (t instanceof Integer) sb.append(t);
-            else sb.append((Character) t);
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != 0) sb.append(slots[i]);
+            else               sb.append(letters[i]);
         }
         return sb.toString();
     }
@@ -0,0 +1,98 @@
+package morphology;
+
+/**
+ * Fonction de hachage des noms de schemes, interchangeable dans les tables
+ * a chainage (SchemeHashTable, ConcurrentSchemeHashTable).
+ *
+ * Le resultat est un entier quelconque : la table le rend positif et le reduit
+ * modulo sa capacite. Strategies fournies :
+ *   - POLYNOMIAL   → Σ k[i] * 31^(n-1-i), hachage historique (par defaut)
+ *   - FNV_1A       → FNV-1a 32 bits sur les octets UTF-16 de chaque caractere
+ *   - MURMUR       → melange de type Murmur3 par caractere + finalisation
+ *   - LETTER_CLASS → tient compte de la structure des noms arabes (voir ci-dessous)
+ *
+ * Les noms de schemes partagent presque tous les lettres ف ع ل (les positions
+ * de la racine) et quelques lettres d'augmentation (م ت ا ن ي و) : les bits
+ * faibles du hachage polynomial, seuls retenus par le modulo, varient peu.
+ * LETTER_CLASS code chaque caractere sur 6 bits selon sa classe (position de
+ * racine, lettre fixe, diacritique) et finit par un melange complet des bits.
+ *
+ * Voir HashTableStats pour comparer les strategies sur un catalogue donne.
+ */
+@FunctionalInterface
+public interface SchemeHash {
+
+    int hash(CharSequence key);
+
+    SchemeHash POLYNOMIAL = key -> {
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) h = h * 31 + key.charAt(i);
+        return h;
+    };
+
+    SchemeHash FNV_1A = key -> {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            h = (h ^ (c & 0xFF))  * 0x01000193;
+            h = (h ^ (c >>> 8))   * 0x01000193;
+        }
+        return h;
+    };
+
+    SchemeHash MURMUR = key -> {
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) {
+            int k = key.charAt(i) * 0xCC9E2D51;
+            k = Integer.rotateLeft(k, 15) * 0x1B873593;
+            h = Integer.rotateLeft(h ^ k, 13) * 5 + 0xE6546B64;
+        }
+        return fmix(h ^ key.length());
+    };
+
+    SchemeHash LETTER_CLASS = key -> {
+        int h = key.length();
+        for (int i = 0; i < key.length(); i++) h = h * 67 + letterClass(key.charAt(i));
+        return fmix(h);
+    };
+
+    /**
+     * Code 6 bits d'un caractere de nom de scheme :
+     *   1..42  lettre fixe (code RootKey)
+     *   43..50 diacritique (tanwin, fatha, damma, kasra, chadda, soukoun)
+     *   61..63 position de racine ف ع ل
+     *   sinon  6 bits faibles du caractere
+     */
+    static int letterClass(char c) {
+        return switch (c) {
+            case '\u0641' -> 61;   // ف
+            case '\u0639' -> 62;   // ع
+            case '\u0644' -> 63;   // ل
+            default -> {
+                if (Scheme.isConsonant(c))                 yield RootKey.code(c);
+                if (c >= '\u064B' && c <= '\u0652') yield 43 + (c - '\u064B');
+                yield c & 0x3F;
+            }
+        };
+    }
+
+    /** Finalisation Murmur3 64 bits. */
+    static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Finalisation Murmur3 : chaque bit d'entree influence tous les bits de sortie. */
+    static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -8,11 +8,14 @@ import java.util.List;
  *
  * Strategie de resolution des collisions : chainage (listes chainees dans chaque bucket).
  * Facteur de charge cible : 0.75 → redimensionnement automatique.
- * Fonction de hachage : polynomiale sur les codes Unicode des caracteres arabes.
+ * Fonction de hachage : interchangeable (SchemeHash), polynomiale par defaut.
+ * HashTableStats mesure la repartition obtenue (histogramme des chaines).
  *
  * Complexite moyenne : O(1) pour get/put/delete, O(n) dans le pire cas (collisions).
+ *
+ * Non synchronisee : voir ConcurrentSchemeHashTable pour un acces partage.
  */
-public class SchemeHashTable {
+public class SchemeHashTable implements SchemeStore {
 
     private static final int INITIAL_CAPACITY = 16;
     private static final double LOAD_FACTOR    = 0.75;
@@ -29,12 +32,17 @@ public class SchemeHashTable {
         }
     }
 
+    private final SchemeHash hashFunction;
     private Entry[] buckets;
     private int     size;
     private int     capacity;
 
-    @SuppressWarnings("unchecked")
     public SchemeHashTable() {
+        this(SchemeHash.POLYNOMIAL);
+    }
+
+    public SchemeHashTable(SchemeHash hashFunction) {
+        this.hashFunction = hashFunction;
         this.capacity = INITIAL_CAPACITY;
         this.buckets  = new Entry[capacity];
         this.size     = 0;
@@ -43,15 +51,11 @@ public class SchemeHashTable {
     // --- Fonction de hachage -----------------------------------------------------
 
     /**
-     * Hachage polynomial sur les codes Unicode.
-     * h(k) = Σ k[i] * 31^(n-1-i)  mod capacity
+     * Indice du bucket : hachage de la strategie, rendu positif, mod capacity.
+     * Par defaut h(k) = Σ k[i] * 31^(n-1-i)  mod capacity
      */
     private int hash(String key) {
-        int hash = 0;
-        for (char c : key.toCharArray()) {
-            hash = (hash * 31 + c) & 0x7FFFFFFF; // masque pour rester positif
-        }
-        return hash % capacity;
+        return (hashFunction.hash(key) & 0x7FFFFFFF) % capacity; // masque pour rester positif
     }
 
     // --- Operations CRUD ---------------------------------------------------------
@@ -170,32 +174,6 @@ public class SchemeHashTable {
         }
     }
 
-    // --- Affichage ---------------------------------------------------------------
-
-    /**
-     * Affiche le contenu de la table de hachage avec les statistiques des buckets.
-     */
-    public void display() {
-        System.out.println("================================================================");
-        System.out.println("         TABLE DE HACHAGE DES SCHEMES MORPHOLOGIQUES");
-        System.out.println("================================================================");
-        System.out.printf("  %-14s | %-14s | %-30s%n", "Scheme", "Categorie", "Description");
-        System.out.println("  ---------------------------------------------------------------");
-        for (Entry bucket : buckets) {
-            Entry cur = bucket;
-            while (cur != null) {
-                System.out.printf("  %-14s | %-14s | %-30s%n",
-                        cur.value.getName(),
-                        cur.value.getCategory(),
-                        cur.value.getDescription());
-                cur = cur.next;
-            }
-        }
-        System.out.println("================================================================");
-        System.out.printf("  Total : %d schemes | Capacite : %d buckets | Charge : %.1f%%%n",
-                size, capacity, (double) size / capacity * 100);
-    }
-
     public int getSize()     { return size; }
     public int getCapacity() { return capacity; }
 
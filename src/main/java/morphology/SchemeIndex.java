@@ -0,0 +1,175 @@
+package morphology;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index secondaire des schemes pour l'analyse inverse d'un mot.
+ *
+ * Les schemes sont regroupes par longueur de squelette. Pour chaque longueur L
+ * et chaque position p (0 <= p < L), on conserve :
+ *   - slots[p]        → schemes ayant une consonne de la racine (C1/C2/C3) en p
+ *   - fixed[p][x]     → schemes ayant la lettre fixe x en p
+ * Chaque ensemble est un masque de bits (long[]) sur l'indice du scheme dans
+ * son groupe ; la lettre x est adressee par son code RootKey (6 bits).
+ *
+ * Pour un mot dont les consonnes sont w[0..L-1], les candidats sont :
+ *   ∩_p ( slots[p] ∪ fixed[p][w[p]] )
+ * Seuls ces candidats sont ensuite verifies par Scheme.matchRoot.
+ *
+ * Exemple : "length 5, م en position 0, و en position 3" → مفعول
+ *
+ * Les lettres fixes sont indexees repliees par le normaliseur des mots
+ * (Scheme.normalized) : avec FOLD_TA_MARBUTA, فاعلة est indexe comme فاعله.
+ *
+ * Un scheme dont une lettre fixe n'est pas une consonne arabe ne peut
+ * correspondre a aucun mot : il n'est pas indexe.
+ *
+ * L'index est immuable : il est reconstruit a chaque modification des schemes.
+ */
+public class SchemeIndex {
+
+    private static final int LETTERS = 64;
+
+    // Schemes de meme longueur de squelette
+    private static class Group {
+        final List<Scheme>  pending         = new ArrayList<>();
+        final List<Scheme>  pendingMatchers = new ArrayList<>();
+        final List<Integer> pendingAt       = new ArrayList<>();
+        Scheme[]   schemes;
+        Scheme[]   matchers;  // lettres fixes repliees (reconnaissance)
+        int[]      positions; // indice du scheme dans le tableau source
+        long[][]   slots;     // [p][mot]
+        long[][][] fixed;     // [p][lettre][mot], null si aucun scheme
+
+        void seal(int length) {
+            schemes   = pending.toArray(new Scheme[0]);
+            matchers  = pendingMatchers.toArray(new Scheme[0]);
+            positions = pendingAt.stream().mapToInt(Integer::intValue).toArray();
+            int words = (schemes.length + 63) >>> 6;
+            slots = new long[length][words];
+            fixed = new long[length][LETTERS][];
+            for (int id = 0; id < schemes.length; id++) {
+                Scheme s = matchers[id];
+                for (int p = 0; p < length; p++) {
+                    if (s.slotAt(p) != 0) {
+                        slots[p][id >>> 6] |= 1L << id;
+                    } else {
+                        int code = RootKey.code(s.letterAt(p));
+                        if (fixed[p][code] == null) fixed[p][code] = new long[words];
+                        fixed[p][code][id >>> 6] |= 1L << id;
+                    }
+                }
+            }
+        }
+    }
+
+    private final Group[] byLength;
+    private final int     size;
+
+    public SchemeIndex(Scheme[] schemes) {
+        this(schemes, ArabicNormalizer.DEFAULT);
+    }
+
+    /** @param normalizer normaliseur des mots analyses (replis des lettres fixes) */
+    public SchemeIndex(Scheme[] schemes, ArabicNormalizer normalizer) {
+        Map<Integer, Group> groups = new HashMap<>();
+        int maxLength = 0;
+        for (int i = 0; i < schemes.length; i++) {
+            Scheme s = schemes[i];
+            Scheme m = s.normalized(normalizer);
+            if (!indexable(m)) continue;
+            Group g = groups.computeIfAbsent(s.length(), k -> new Group());
+            g.pending.add(s);
+            g.pendingMatchers.add(m);
+            g.pendingAt.add(i);
+            maxLength = Math.max(maxLength, s.length());
+        }
+        this.byLength = new Group[maxLength + 1];
+        for (Map.Entry<Integer, Group> e : groups.entrySet()) {
+            e.getValue().seal(e.getKey());
+            byLength[e.getKey()] = e.getValue();
+        }
+        this.size = schemes.length;
+    }
+
+    private static boolean indexable(Scheme s) {
+        for (int p = 0; p < s.length(); p++)
+            if (s.slotAt(p) == 0 && !Scheme.isConsonant(s.letterAt(p))) return false;
+        return true;
+    }
+
+    /**
+     * Retourne les schemes compatibles avec les consonnes d'un mot
+     * (meme longueur et memes lettres fixes aux memes positions).
+     * L'ordre relatif des schemes fourni a la construction est conserve.
+     *
+     * @param wordCons les consonnes du mot (sans diacritiques)
+     * @return les schemes candidats, a verifier par Scheme.extractRoot
+     */
+    public List<Scheme> candidates(char[] wordCons) {
+        if (wordCons == null) return Collections.emptyList();
+        Group g = group(wordCons.length);
+        if (g == null) return Collections.emptyList();
+
+        List<Scheme> result = new ArrayList<>();
+        for (int w = 0; w < g.slots[0].length; w++) {
+            long m = mask(g, w, wordCons);
+            while (m != 0) {
+                result.add(g.schemes[w << 6 | Long.numberOfTrailingZeros(m)]);
+                m &= m - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Version sans allocation : verifie chaque candidat et ecrit les
+     * correspondances sous forme empaquetee (voir CompiledSchemeSet.pack).
+     *
+     * @param wordCons tampon contenant les consonnes du mot
+     * @param n        nombre de consonnes utiles
+     * @param out      tampon de sortie fourni par l'appelant
+     * @return le nombre de correspondances ecrites (au plus out.length)
+     */
+    public int match(char[] wordCons, int n, long[] out) {
+        Group g = group(n);
+        if (g == null) return 0;
+
+        int count = 0;
+        for (int w = 0; w < g.slots[0].length && count < out.length; w++) {
+            long m = mask(g, w, wordCons);
+            while (m != 0 && count < out.length) {
+                int id  = w << 6 | Long.numberOfTrailingZeros(m);
+                int key = g.matchers[id].matchRoot(wordCons, n);
+                if (key != RootKey.NONE) out[count++] = CompiledSchemeSet.pack(g.positions[id], key);
+                m &= m - 1;
+            }
+        }
+        return count;
+    }
+
+    private Group group(int length) {
+        return length > 0 && length < byLength.length ? byLength[length] : null;
+    }
+
+    // Intersection des masques pour le mot de 64 schemes numero w
+    private static long mask(Group g, int w, char[] wordCons) {
+        int  remaining = g.schemes.length - (w << 6);
+        long m = remaining >= 64 ? -1L : (1L << remaining) - 1;
+        for (int p = 0; p < g.slots.length && m != 0; p++) {
+            if (!Scheme.isConsonant(wordCons[p])) return 0;
+            long allowed = g.slots[p][w];
+            long[] fixed = g.fixed[p][RootKey.code(wordCons[p])];
+            if (fixed != null) allowed |= fixed[w];
+            m &= allowed;
+        }
+        return m;
+    }
+
+    /** Nombre total de schemes indexes. */
+    public int size() { return size; }
+}
@@ -0,0 +1,49 @@
+package morphology;
+
+import java.util.List;
+
+/**
+ * Acces en lecture seule a un dictionnaire de schemes, indexe par nom arabe.
+ *
+ * Implementations :
+ *   - SchemeStore (et ses tables)  → dictionnaire modifiable
+ *   - FrozenSchemeTable            → hachage parfait minimal, immuable
+ *
+ * Les statistiques de buckets (capacite, taille d'un bucket, indice) servent
+ * a l'affichage pedagogique de la table dans la CLI et la GUI.
+ */
+public interface SchemeLookup {
+
+    /** @return le Scheme ou null si absent */
+    Scheme get(String key);
+
+    default boolean contains(String key) { return get(key) != null; }
+
+    List<Scheme> getAllSchemes();
+
+    List<String> getAllKeys();
+
+    /** Affiche le contenu de la table avec les statistiques des buckets. */
+    default void display() {
+        System.out.println("================================================================");
+        System.out.println("         TABLE DE HACHAGE DES SCHEMES MORPHOLOGIQUES");
+        System.out.println("================================================================");
+        System.out.printf("  %-14s | %-14s | %-30s%n", "Scheme", "Categorie", "Description");
+        System.out.println("  ---------------------------------------------------------------");
+        for (Scheme s : getAllSchemes()) {
+            System.out.printf("  %-14s | %-14s | %-30s%n",
+                    s.getName(), s.getCategory(), s.getDescription());
+        }
+        System.out.println("================================================================");
+        System.out.printf("  Total : %d schemes | Capacite : %d buckets | Charge : %.1f%%%n",
+                getSize(), getCapacity(), (double) getSize() / getCapacity() * 100);
+    }
+
+    int getSize();
+
+    int getCapacity();
+
+    int getBucketSize(int idx);
+
+    int bucketIndexOf(String key);
+}
@@ -0,0 +1,22 @@
+package morphology;
+
+/**
+ * Dictionnaire modifiable des schemes morphologiques, indexe par nom arabe.
+ *
+ * Implementations :
+ *   - SchemeHashTable           → chainage, mono-thread
+ *   - ConcurrentSchemeHashTable → lecture sans verrou, ecritures par verrous
+ *                                 repartis, redimensionnement incremental
+ *   - OpenSchemeHashTable       → adressage ouvert sur tableaux paralleles,
+ *                                 mono-thread
+ *
+ * Les operations de lecture sont celles de SchemeLookup.
+ */
+public interface SchemeStore extends SchemeLookup {
+
+    /** Insere ou met a jour un scheme. */
+    void put(String key, Scheme scheme);
+
+    /** @return true si supprime, false si absent */
+    boolean delete(String key);
+}
@@ -0,0 +1,337 @@
+package morphology;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Lexique statique : toutes les formes generees (racine × scheme) dans un
+ * fichier trie, compresse par prefixes et lu directement en memoire projetee.
+ *
+ * Plusieurs JVM qui ouvrent le meme fichier partagent une seule copie dans le
+ * cache de pages du systeme ; le tas ne contient que l'en-tete et les schemes.
+ *
+ * Cle d'une forme : ses consonnes, chacune codee sur un octet par son code
+ * RootKey (1..42, ordre des caracteres conserve), repliee par le normaliseur
+ * du moteur (voir ArabicNormalizer). Seules les formes entierement
+ * consonantiques et reconnues en retour par leur scheme pour la meme racine
+ * (LexiconIndex.recognizedForm, filtre commun aux deux lexiques) sont
+ * exportees : ce sont exactement celles que MorphologyEngine.analyzeWord
+ * peut reconnaitre. Les drapeaux du normaliseur
+ * sont ecrits dans l'en-tete : analyzeWord normalise les mots de la meme facon.
+ *
+ * Format (version 2, gros-boutiste) :
+ *   en-tete : int MAGIC "MLEX" | short VERSION | short BLOCK | int n formes |
+ *             int blocs | int schemes | long position de l'index |
+ *             long position des schemes | int drapeaux du normaliseur
+ *             (absent en version 1, vaut alors 0)
+ *   blocs   : BLOCK entrees par bloc, triees par (cle, racine, scheme) :
+ *               byte prefixe commun avec l'entree precedente (0 en debut de bloc) |
+ *               byte longueur du suffixe | suffixe | 3 octets cle RootKey |
+ *               short position du scheme
+ *   index   : int position de chaque bloc (points de reprise)
+ *   schemes : chaine nom | chaine categorie | chaine description |
+ *             byte L | L elements (byte slot 1..3, ou 0 + char lettre)
+ *
+ * Recherche : dichotomie sur la premiere cle (complete) de chaque bloc, puis
+ * lecture sequentielle a partir du bloc trouve. Toutes les lectures sont des
+ * lectures absolues : une instance peut etre partagee entre threads.
+ */
+public final class StaticLexicon {
+
+    static final int   MAGIC   = 0x4D4C4558; // "MLEX"
+    static final short VERSION = 2;
+    static final int   BLOCK   = 16;
+    static final int   HEADER  = 40;
+    static final int   HEADER_V1 = 36;
+    static final int   MAX_KEY = 255;
+
+    private final ByteBuffer data;
+    private final int        size;
+    private final int        blocks;
+    private final int        indexAt;
+    private final Scheme[]   schemes;
+    private final ArabicNormalizer normalizer;
+
+    private StaticLexicon(ByteBuffer data, int size, int blocks, int indexAt, Scheme[] schemes,
+                          ArabicNormalizer normalizer) {
+        this.data       = data;
+        this.size       = size;
+        this.blocks     = blocks;
+        this.indexAt    = indexAt;
+        this.schemes    = schemes;
+        this.normalizer = normalizer;
+    }
+
+    // ── Export ────────────────────────────────────────────────────────────────
+
+    // Forme a exporter
+    private static final class Form {
+        final byte[] key;
+        final int    root;
+        final int    scheme;
+
+        Form(byte[] key, int root, int scheme) {
+            this.key    = key;
+            this.root   = root;
+            this.scheme = scheme;
+        }
+    }
+
+    /**
+     * Ecrit le lexique statique des racines donnees (voir MorphologyEngine.exportStaticLexicon).
+     * @return le nombre de formes ecrites
+     */
+    static int write(Iterable<AVLNode> roots, CompiledSchemeSet set, ArabicNormalizer normalizer, Path file)
+            throws IOException {
+        if (set.size() > 0xFFFF) throw new IOException("Trop de schemes pour le lexique statique.");
+        List<Form> list = new ArrayList<>();
+        char[] cons = new char[3];
+        for (AVLNode node : roots) {
+            RootKey.decode(node.root, cons, 0);
+            for (int i = 0; i < set.size(); i++) {
+                byte[] key = keyOf(LexiconIndex.recognizedForm(cons, set.get(i), node.root), normalizer);
+                if (key != null) list.add(new Form(key, node.root, i));
+            }
+        }
+        Form[] forms = list.toArray(new Form[0]);
+        Comparator<Form> byKey = (a, b) -> Arrays.compare(a.key, b.key);
+        Arrays.parallelSort(forms, byKey.thenComparingInt(f -> f.root).thenComparingInt(f -> f.scheme));
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        int blockCount = (forms.length + BLOCK - 1) / BLOCK;
+        int[] index = new int[blockCount];
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.write(new byte[HEADER]); // en-tete ecrit a la fin
+                long offset = HEADER;        // DataOutputStream.size() plafonne a Integer.MAX_VALUE
+                byte[] previous = new byte[0];
+                for (int i = 0; i < forms.length; i++) {
+                    Form f = forms[i];
+                    int shared = 0;
+                    if (i % BLOCK == 0) {
+                        index[i / BLOCK] = position(offset);
+                    } else {
+                        int max = Math.min(previous.length, f.key.length);
+                        while (shared < max && previous[shared] == f.key[shared]) shared++;
+                    }
+                    out.writeByte(shared);
+                    out.writeByte(f.key.length - shared);
+                    out.write(f.key, shared, f.key.length - shared);
+                    out.writeByte(f.root >>> 16);
+                    out.writeShort(f.root);
+                    out.writeShort(f.scheme);
+                    offset += 7 + f.key.length - shared;
+                    previous = f.key;
+                }
+                int indexAt = position(offset);
+                for (int at : index) out.writeInt(at);
+                offset += 4L * index.length;
+                int schemesAt = position(offset);
+                for (int i = 0; i < set.size(); i++) offset += writeScheme(out, set.get(i));
+                position(offset);
+                out.flush();
+                writeHeader(tmp, forms.length, blockCount, set.size(), indexAt, schemesAt, normalizer.getFlags());
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            EngineSnapshot.deleteQuietly(tmp, e);
+            throw e;
+        }
+        return forms.length;
+    }
+
+    // Cle d'une forme generee (lettres repliees), ou null si elle contient autre chose que des consonnes
+    private static byte[] keyOf(String form, ArabicNormalizer normalizer) {
+        if (form == null || form.isEmpty() || form.length() > MAX_KEY) return null;
+        byte[] key = new byte[form.length()];
+        for (int i = 0; i < key.length; i++) {
+            char c = form.charAt(i);
+            if (!Scheme.isConsonant(c)) return null;
+            key[i] = (byte) RootKey.code(normalizer.foldLetter(c));
+        }
+        return key;
+    }
+
+    // Le fichier est projete d'un seul tenant : toute position doit tenir dans un int
+    private static int position(long offset) throws IOException {
+        if (offset > Integer.MAX_VALUE)
+            throw new IOException("Lexique statique trop volumineux : " + offset + " octets (limite " + Integer.MAX_VALUE + ").");
+        return (int) offset;
+    }
+
+    // @return le nombre d'octets ecrits
+    private static int writeScheme(DataOutputStream out, Scheme s) throws IOException {
+        int written = 0;
+        for (String text : new String[]{s.getName(), s.getCategory(), s.getDescription()}) {
+            byte[] bytes = (text == null ? "" : text).getBytes(StandardCharsets.UTF_8);
+            out.writeShort(bytes.length);
+            out.write(bytes);
+            written += 2 + bytes.length;
+        }
+        out.writeByte(s.length());
+        written++;
+        for (int i = 0; i < s.length(); i++) {
+            out.writeByte(s.slotAt(i));
+            written++;
+            if (s.slotAt(i) == 0) {
+                out.writeChar(s.letterAt(i));
+                written += 2;
+            }
+        }
+        return written;
+    }
+
+    private static void writeHeader(Path file, int size, int blockCount, int schemeCount,
+                                    int indexAt, int schemesAt, int flags) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) BLOCK)
+              .putInt(size).putInt(blockCount).putInt(schemeCount)
+              .putLong(indexAt).putLong(schemesAt).putInt(flags).flip();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) ch.write(header, header.position());
+            ch.force(true);
+        }
+    }
+
+    // ── Lecture ───────────────────────────────────────────────────────────────
+
+    /** Projette un lexique statique en memoire (lecture seule). */
+    public static StaticLexicon open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_V1 || ch.size() > Integer.MAX_VALUE)
+                throw new IOException("Lexique statique invalide : " + file);
+            ByteBuffer data = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (data.getInt(0) != MAGIC) throw new IOException("Fichier non reconnu : " + file);
+            short version = data.getShort(4);
+            if (version < 1 || version > VERSION) throw new IOException("Version de lexique non supportee : " + version);
+            if (version >= 2 && ch.size() < HEADER) throw new IOException("Lexique statique invalide : " + file);
+            if (data.getShort(6) != BLOCK) throw new IOException("Taille de bloc non supportee.");
+            int size      = data.getInt(8);
+            int blocks    = data.getInt(12);
+            int schemes   = data.getInt(16);
+            int indexAt   = (int) data.getLong(20);
+            int schemesAt = (int) data.getLong(28);
+            int flags     = version >= 2 ? data.getInt(36) : 0;
+            if ((flags & ~ArabicNormalizer.ALL_FLAGS) != 0) throw new IOException("Normalisation inconnue : " + flags);
+            return new StaticLexicon(data, size, blocks, indexAt, readSchemes(data, schemesAt, schemes),
+                                     ArabicNormalizer.of(flags));
+        }
+    }
+
+    private static Scheme[] readSchemes(ByteBuffer data, int at, int count) {
+        ByteBuffer in = data.duplicate().position(at);
+        Scheme[] schemes = new Scheme[count];
+        for (int i = 0; i < count; i++) {
+            String[] text = new String[3];
+            for (int t = 0; t < 3; t++) {
+                byte[] bytes = new byte[in.getShort() & 0xFFFF];
+                in.get(bytes);
+                text[t] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            Object[] skeleton = new Object[in.get() & 0xFF];
+            for (int p = 0; p < skeleton.length; p++) {
+                int slot = in.get();
+                skeleton[p] = slot == 0 ? (Object) in.getChar() : (Object) slot;
+            }
+            schemes[i] = new Scheme(text[0], skeleton, text[1], text[2]);
+        }
+        return schemes;
+    }
+
+    /**
+     * Formes dont les consonnes sont cons[0..n), ecrites empaquetees dans out
+     * (voir CompiledSchemeSet.pack : position du scheme dans getScheme, cle RootKey).
+     *
+     * @return le nombre de correspondances ecrites (au plus out.length)
+     */
+    public int lookup(char[] cons, int n, long[] out) {
+        if (n <= 0 || n > MAX_KEY || size == 0) return 0;
+        for (int i = 0; i < n; i++) if (!Scheme.isConsonant(cons[i])) return 0;
+
+        // Dernier bloc dont la premiere cle est strictement inferieure a la requete
+        int lo = 0, hi = blocks - 1, start = 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int at  = data.getInt(indexAt + 4 * mid);
+            if (compare(at + 2, data.get(at + 1) & 0xFF, cons, n) < 0) { start = mid; lo = mid + 1; }
+            else                                                        hi = mid - 1;
+        }
+
+        // Lecture sequentielle en reconstruisant chaque cle
+        byte[] key = new byte[MAX_KEY];
+        int count = 0;
+        int at = data.getInt(indexAt + 4 * start);
+        for (int e = start * BLOCK; e < size && count < out.length; e++) {
+            int shared = data.get(at) & 0xFF;
+            int suffix = data.get(at + 1) & 0xFF;
+            data.get(at + 2, key, shared, suffix);
+            int length = shared + suffix;
+            at += 2 + suffix;
+            int cmp = compare(key, length, cons, n);
+            if (cmp > 0) break;
+            if (cmp == 0) {
+                int root = (data.get(at) & 0xFF) << 16 | data.getShort(at + 1) & 0xFFFF;
+                out[count++] = CompiledSchemeSet.pack(data.getShort(at + 3) & 0xFFFF, root);
+            }
+            at += 5;
+        }
+        return count;
+    }
+
+    private int compare(int at, int length, char[] cons, int n) {
+        for (int i = 0; i < Math.min(length, n); i++) {
+            int d = data.get(at + i) - RootKey.code(cons[i]);
+            if (d != 0) return d;
+        }
+        return length - n;
+    }
+
+    private static int compare(byte[] key, int length, char[] cons, int n) {
+        for (int i = 0; i < Math.min(length, n); i++) {
+            int d = key[i] - RootKey.code(cons[i]);
+            if (d != 0) return d;
+        }
+        return length - n;
+    }
+
+    /**
+     * Analyse d'un mot a la maniere de MorphologyEngine.analyzeWord, a partir
+     * du fichier seul (racines connues du lexique exporte).
+     */
+    public List<ValidationResult> analyzeWord(String word) {
+        List<ValidationResult> matches = new ArrayList<>();
+        if (word == null) return matches;
+        char[] cons = new char[ArabicNormalizer.capacity(word.length())];
+        int n = normalizer.normalize(word, 0, word.length(), cons);
+        long[] out = new long[schemes.length];
+        int found = lookup(cons, n, out);
+        for (int i = 0; i < found; i++) {
+            String root = RootKey.toString(CompiledSchemeSet.rootOf(out[i]));
+            ValidationResult vr = new ValidationResult(true, schemes[CompiledSchemeSet.schemeOf(out[i])],
+                    "Racine " + root + " trouvee dans le lexique statique");
+            vr.setExtractedRoot(root);
+            matches.add(vr);
+        }
+        return matches;
+    }
+
+    /** Scheme a la position donnee (voir lookup). */
+    public Scheme getScheme(int pos) { return schemes[pos]; }
+
+    public int getSchemeCount()      { return schemes.length; }
+
+    /** Nombre de formes du lexique. */
+    public int size()                { return size; }
+}
@@ -10,6 +10,11 @@ public class ValidationResult {
     private final String  message;
     private       String  extractedRoot;
 
+    // Segmentation par AffixSegmenter (consonnes seulement ; null si non segmente)
+    private String prefix;
+    private String stem;
+    private String suffix;
+
     public ValidationResult(boolean valid, Scheme scheme, String message) {
         this.valid   = valid;
         this.scheme  = scheme;
@@ -22,12 +27,29 @@ public class ValidationResult {
     public String  getExtractedRoot() { return extractedRoot; }
     public void    setExtractedRoot(String r) { this.extractedRoot = r; }
 
+    public String  getPrefix()        { return prefix; }
+    public String  getStem()          { return stem; }
+    public String  getSuffix()        { return suffix; }
+
+    /** Vrai si le resultat provient d'une analyse avec segmentation des affixes. */
+    public boolean isSegmented()      { return stem != null; }
+
+    public void setSegmentation(String prefix, String stem, String suffix) {
+        this.prefix = prefix;
+        this.stem   = stem;
+        this.suffix = suffix;
+    }
+
     @Override
     public String toString() {
         if (!valid) return "NON — " + message;
         String info = "OUI — Scheme reconnu : " + scheme.getName()
                     + " (" + scheme.getCategory() + ")";
         if (extractedRoot != null) info += " | Racine extraite : " + extractedRoot;
+        if (stem != null) {
+            info += " | Segmentation : " + (prefix.isEmpty() ? "" : prefix + "+") + stem
+                  + (suffix.isEmpty() ? "" : "+" + suffix);
+        }
         return info;
     }
 }
@@ -0,0 +1,80 @@
+package morphology.vector;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import morphology.ConsonantFilter;
+
+/**
+ * Filtrage des consonnes par l'API vectorielle (module jdk.incubator.vector).
+ *
+ * Compilation et execution (facultatives, voir README) :
+ *   javac --add-modules jdk.incubator.vector -cp out -d out src/main/java/morphology/vector/*.java
+ *   java  --add-modules jdk.incubator.vector -cp out ...
+ * Chargee par ConsonantFilter.best() ; sans le module, best() retombe sur le
+ * chemin scalaire.
+ *
+ * Le texte est lu par vecteurs de caracteres (ShortVector.SPECIES_PREFERRED :
+ * 16 caracteres en AVX2). Trois masques classent chaque voie :
+ *   - lettre  : U+0621..U+063A ou U+0641..U+064A (conservee) ;
+ *   - ignore  : U+0640..U+065F (tatweel, harakat) ou U+0670 (retire) ;
+ *   - sinon   : separateur, remplace par un espace (blend).
+ * Un vecteur sans caractere ignore (texte non vocalise, ponctuation) est
+ * ecrit tel quel. Sinon les voies conservees sont compactees : JDK 17 n'a pas
+ * d'operation compress, le masque est donc converti en bits (toLong) et les
+ * voies retenues sont recopiees par parcours des bits a 1.
+ *
+ * Un vecteur contenant un caractere au-dela de U+0670 (formes de
+ * presentation, autres ecritures, fin du bloc arabe) passe par le chemin
+ * scalaire, qui seul connait les replis de ArabicNormalizer : la sortie est
+ * identique a celle de ConsonantFilter.scalar().
+ */
+public final class VectorConsonantFilter extends ConsonantFilter {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    private static final short SPACE = ' ';
+
+    private final ConsonantFilter scalar = ConsonantFilter.scalar();
+
+    public VectorConsonantFilter() {
+        if (SPECIES.length() > Long.SIZE) throw new IllegalStateException("Vecteurs trop larges : " + SPECIES);
+    }
+
+    @Override
+    public int filter(char[] src, int from, int to, char[] dst, int at) {
+        int    width = SPECIES.length();
+        char[] tmp   = new char[width]; // voies d'un vecteur a compacter
+        int    i = from, o = at;
+        for (int bound = to - width; i <= bound; i += width) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, src, i);
+
+            // Comparaisons non signees : x - a <= b - a  <=>  a <= x <= b
+            if (v.compare(VectorOperators.UNSIGNED_GT, (short) 0x0670).anyTrue()) {
+                o += scalar.filter(src, i, i + width, dst, o);
+                continue;
+            }
+            VectorMask<Short> letter = v.sub((short) 0x0621).compare(VectorOperators.UNSIGNED_LE, (short) 0x19)
+                                   .or(v.sub((short) 0x0641).compare(VectorOperators.UNSIGNED_LE, (short) 0x09));
+            VectorMask<Short> ignored = v.sub((short) 0x0640).compare(VectorOperators.UNSIGNED_LE, (short) 0x1F)
+                                    .or(v.compare(VectorOperators.EQ, (short) 0x0670))
+                                    .andNot(letter);
+            ShortVector out = v.blend(SPACE, letter.or(ignored).not());
+
+            if (!ignored.anyTrue()) {
+                out.intoCharArray(dst, o);
+                o += width;
+                continue;
+            }
+            out.intoCharArray(tmp, 0);
+            for (long keep = ignored.not().toLong(); keep != 0; keep &= keep - 1) {
+                dst[o++] = tmp[Long.numberOfTrailingZeros(keep)];
+            }
+        }
+        return o - at + scalar.filter(src, i, to, dst, o);
+    }
+
+    @Override
+    public String getName() { return "vectoriel (" + SPECIES.length() + " voies)"; }
+}
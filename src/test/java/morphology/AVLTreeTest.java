@@ -0,0 +1,104 @@
+package morphology;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static morphology.Checks.*;
+
+/**
+ * Requetes d'ordre de AVLTree (rank, select, countRange, range, page),
+ * comparees a une liste triee de reference apres insertions et suppressions.
+ */
+public class AVLTreeTest {
+
+    public static void main(String[] args) {
+        Random random = new Random(7);
+        AVLTree tree = new AVLTree();
+        TreeSet<Integer> reference = new TreeSet<>();
+        for (int i = 0; i < 2000; i++) {
+            int key = randomKey(random);
+            tree.insert(key);
+            reference.add(key);
+        }
+        for (int i = 0; i < 500; i++) {
+            int key = randomKey(random);
+            tree.delete(key);
+            reference.remove(key);
+        }
+        List<Integer> sorted = new ArrayList<>(reference);
+
+        rankAndSelect(tree, sorted, random);
+        ranges(tree, sorted, random);
+        pages(tree, sorted);
+        invalidPages(tree, sorted);
+        done("AVLTreeTest");
+    }
+
+    private static int randomKey(Random random) {
+        return RootKey.pack(letter(random), letter(random), letter(random));
+    }
+
+    // Consonnes U+0621..U+063A et U+0641..U+064A
+    private static char letter(Random random) {
+        int i = random.nextInt(36);
+        return (char) (i < 26 ? 0x0621 + i : 0x0641 + i - 26);
+    }
+
+    private static void rankAndSelect(AVLTree tree, List<Integer> sorted, Random random) {
+        equal(sorted.size(), tree.size(), "size");
+        for (int k = 0; k < sorted.size(); k++) {
+            equal(sorted.get(k), tree.select(k).root, "select(" + k + ")");
+            equal(k, tree.rank(sorted.get(k)), "rank de la " + k + "-ieme racine");
+        }
+        equal(null, tree.select(-1), "select(-1)");
+        equal(null, tree.select(sorted.size()), "select(size)");
+        for (int i = 0; i < 200; i++) {
+            int key = randomKey(random);
+            int expected = 0;
+            while (expected < sorted.size() && sorted.get(expected) < key) expected++;
+            equal(expected, tree.rank(key), "rank d'une cle quelconque");
+        }
+    }
+
+    private static void ranges(AVLTree tree, List<Integer> sorted, Random random) {
+        for (int i = 0; i < 200; i++) {
+            int a = random.nextInt(sorted.size()), b = random.nextInt(sorted.size());
+            int lo = sorted.get(Math.min(a, b)), hi = sorted.get(Math.max(a, b));
+            List<Integer> inside = new ArrayList<>();
+            for (int key : sorted) if (key >= lo && key <= hi) inside.add(key);
+            equal(inside.size(), tree.countRange(lo, hi), "countRange");
+
+            int offset = random.nextInt(inside.size() + 3), limit = random.nextInt(10);
+            List<Integer> expected = inside.subList(Math.min(offset, inside.size()),
+                                                    Math.min(offset + limit, inside.size()));
+            equal(expected, keys(tree.range(lo, hi, offset, limit)), "range(" + offset + ", " + limit + ")");
+        }
+        equal(0, tree.countRange(sorted.get(5), sorted.get(2)), "countRange inverse");
+        check(tree.range(sorted.get(5), sorted.get(2), 0, 10).isEmpty(), "range inverse vide");
+    }
+
+    private static void pages(AVLTree tree, List<Integer> sorted) {
+        for (int offset = 0; offset <= sorted.size() + 5; offset += 97) {
+            List<Integer> expected = sorted.subList(Math.min(offset, sorted.size()),
+                                                    Math.min(offset + 50, sorted.size()));
+            equal(expected, keys(tree.page(offset, 50)), "page(" + offset + ", 50)");
+        }
+        check(tree.page(0, 0).isEmpty(), "page de taille nulle");
+    }
+
+    private static void invalidPages(AVLTree tree, List<Integer> sorted) {
+        int lo = sorted.get(5), hi = sorted.get(10);
+        fails(IllegalArgumentException.class, () -> tree.page(-2, 5), "page offset negatif");
+        fails(IllegalArgumentException.class, () -> tree.page(0, -1), "page limite negative");
+        fails(IllegalArgumentException.class, () -> tree.range(lo, hi, -3, 4), "range offset negatif");
+        fails(IllegalArgumentException.class, () -> tree.range(lo, hi, 0, -4), "range limite negative");
+    }
+
+    private static List<Integer> keys(List<AVLNode> nodes) {
+        List<Integer> keys = new ArrayList<>(nodes.size());
+        for (AVLNode node : nodes) keys.add(node.root);
+        return keys;
+    }
+}
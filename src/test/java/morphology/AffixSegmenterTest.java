@@ -0,0 +1,95 @@
+package morphology;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static morphology.Checks.*;
+
+/**
+ * Segmentation des affixes (AffixSegmenter) et analyse segmentee du moteur :
+ * decoupages des tries avant et arriere, cas لل des proclitiques par defaut,
+ * filtre de longueur, affixes replies par le normaliseur et refus des affixes
+ * non consonantiques.
+ */
+public class AffixSegmenterTest {
+
+    private static final String KATIB  = "\u0643\u0627\u062A\u0628"; // كاتب
+    private static final String WAL    = "\u0648\u0627\u0644";       // وال
+    private static final String LIL    = "\u0644\u0644";             // لل
+    private static final String UN     = "\u0648\u0646";             // ون
+    private static final String HA     = "\u0647\u0627";             // ها
+    private static final String TA_M   = "\u0629";                   // ة
+    private static final String HA_END = "\u0647";                   // ه
+    private static final String FA3IL  = "\u0641\u0627\u0639\u0644"; // فاعل
+    private static final String KATABA = "\u0643\u062A\u0628";       // كتب
+
+    public static void main(String[] args) {
+        MorphologyEngine engine = new MorphologyEngine();
+        engine.bulkLoadRoots(MorphologyEngine.DEFAULT_ROOTS);
+        CompiledSchemeSet set = engine.getCompiledSchemes();
+        AffixSegmenter    seg = new AffixSegmenter();
+
+        check(splits(seg, set, WAL + KATIB + UN).contains(WAL + "|" + KATIB + "|" + UN), WAL + " + " + KATIB + " + " + UN);
+        check(splits(seg, set, LIL + KATIB).contains(LIL + "|" + KATIB + "|"), LIL + " + " + KATIB);
+        check(splits(seg, set, KATIB + HA).contains("|" + KATIB + "|" + HA), KATIB + " + " + HA);
+        check(AffixSegmenter.DEFAULT_PREFIXES.contains(LIL), "proclitique " + LIL);
+        check(!AffixSegmenter.DEFAULT_PREFIXES.contains("\u0644\u0627\u0644"), "\u0644 + \u0627\u0644 s'ecrit " + LIL); // لال
+
+        // Filtre de longueur : aucun radical d'une longueur sans scheme
+        for (String word : List.of(WAL + KATIB + UN, LIL + KATIB, KATIB + HA, "\u0648\u0643")) {
+            for (String split : splits(seg, set, word)) {
+                int stem = split.split("\\|", -1)[1].length();
+                check(set.hasLength(stem), "longueur de radical " + stem + " dans " + word);
+            }
+        }
+        check(!set.hasLength(1), "aucun scheme d'une lettre");
+        check(!splits(seg, set, "\u0648\u0643").contains("\u0648|\u0643|"), "radical d'une lettre ecarte"); // و + ك
+
+        // Analyse segmentee du moteur
+        ValidationResult vr = find(engine.analyzeWordSegmented(WAL + KATIB + UN), WAL, KATIB, UN);
+        check(vr != null, "analyse segmentee");
+        equal(FA3IL, vr.getScheme().getName(), "scheme du radical");
+        equal(KATABA, vr.getExtractedRoot(), "racine du radical");
+
+        // Affixes replies : ة → ه avec FOLD_TA_MARBUTA
+        check(seg.normalized(ArabicNormalizer.DEFAULT) == seg, "aucun repli : meme segmenteur");
+        AffixSegmenter folded = seg.normalized(ArabicNormalizer.FOLDING);
+        check(seg.getSuffixes().contains(TA_M) && folded.getSuffixes().contains(HA_END)
+              && !folded.getSuffixes().contains(TA_M), "suffixe " + TA_M + " replie");
+        MorphologyEngine folding = new MorphologyEngine();
+        folding.setNormalizer(ArabicNormalizer.FOLDING);
+        folding.insertRoot(KATABA);
+        check(find(folding.analyzeWordSegmented(WAL + KATIB + TA_M), WAL, KATIB, HA_END) != null,
+              "segmentation avec suffixe replie");
+
+        fails(IllegalArgumentException.class, () -> new AffixSegmenter(List.of("\u064E\u0644"), List.of()),
+              "affixe avec haraka");
+        fails(IllegalArgumentException.class, () -> new AffixSegmenter(List.of(), List.of("a")),
+              "affixe non arabe");
+        fails(IllegalArgumentException.class, () -> new AffixSegmenter(List.of(""), List.of()),
+              "affixe vide");
+        done("AffixSegmenterTest");
+    }
+
+    // Decoupages "prefixe|radical|suffixe" retenus pour un mot
+    private static Set<String> splits(AffixSegmenter seg, CompiledSchemeSet set, String word) {
+        char[] cons = word.toCharArray();
+        int[]  out  = new int[seg.maxCandidates()];
+        int    n    = seg.segment(cons, cons.length, set, out);
+        Set<String> splits = new TreeSet<>();
+        for (int i = 0; i < n; i++) {
+            int p = AffixSegmenter.prefixLength(out[i]), s = AffixSegmenter.suffixLength(out[i]);
+            splits.add(word.substring(0, p) + "|" + word.substring(p, word.length() - s) + "|"
+                       + word.substring(word.length() - s));
+        }
+        return splits;
+    }
+
+    private static ValidationResult find(List<ValidationResult> results, String prefix, String stem, String suffix) {
+        for (ValidationResult vr : results) {
+            if (prefix.equals(vr.getPrefix()) && stem.equals(vr.getStem()) && suffix.equals(vr.getSuffix())) return vr;
+        }
+        return null;
+    }
+}
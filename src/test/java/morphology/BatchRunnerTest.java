@@ -0,0 +1,82 @@
+package morphology;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static morphology.Checks.*;
+
+/**
+ * Mode batch (BatchRunner.run) avec --in / --out : en-tete TSV et ligne vide
+ * de resultats, echappement NDJSON des guillemets et caracteres de controle,
+ * code de sortie 2 pour des arguments invalides.
+ */
+public class BatchRunnerTest {
+
+    private static final String KATIB  = "\u0643\u0627\u062A\u0628"; // كاتب
+    private static final String KATABA = "\u0643\u062A\u0628";       // كتب
+    private static final String FA3IL  = "\u0641\u0627\u0639\u0644"; // فاعل
+    private static final String ODD    = "a\"b\\c\u0001d\te";       // guillemet, barre, controle, tabulation
+
+    public static void main(String[] args) throws IOException {
+        PrintStream errors = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        Path dir = Files.createTempDirectory("batch-test");
+        try {
+            tsv(dir);
+            ndjson(dir);
+            equal(2, BatchRunner.run(new String[]{"--format"}), "valeur manquante apres --format");
+            equal(2, BatchRunner.run(new String[]{"--format", "xml"}), "format inconnu");
+            equal(2, BatchRunner.run(new String[]{"--inconnue"}), "option inconnue");
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+            System.setErr(errors);
+        }
+        done("BatchRunnerTest");
+    }
+
+    // Analyse en TSV : en-tete, correspondances, ligne vide de resultats pour un mot inconnu
+    private static void tsv(Path dir) throws IOException {
+        List<String> lines = run(dir, "tsv", KATIB + "\nzzz\n\n");
+        equal("word\troot\tscheme\tcategory\tindexed", lines.get(0), "en-tete TSV");
+        check(lines.contains(KATIB + "\t" + KATABA + "\t" + FA3IL + "\t"
+                             + scheme(FA3IL).getCategory() + "\ttrue"), "correspondance TSV");
+        equal("zzz\t\t\t\t", lines.get(lines.size() - 1), "ligne vide de resultats");
+        check(lines.stream().noneMatch(String::isEmpty), "ligne d'entree vide ignoree");
+    }
+
+    // Analyse et validation en NDJSON : un objet par ligne, chaines echappees
+    private static void ndjson(Path dir) throws IOException {
+        List<String> lines = run(dir, "ndjson", ODD + "\n");
+        equal(List.of("{\"word\":\"a\\\"b\\\\c\\u0001d\\te\",\"matches\":[]}"), lines, "echappement NDJSON");
+
+        Path in = Files.writeString(dir.resolve("pairs.txt"), KATIB + "\t" + KATABA + "\nzzz\t" + ODD + "\n");
+        Path out = dir.resolve("pairs.ndjson");
+        equal(0, BatchRunner.run(new String[]{"--validate", "--format", "ndjson",
+                                              "--in", in.toString(), "--out", out.toString()}), "validation");
+        List<String> pairs = Files.readAllLines(out, StandardCharsets.UTF_8);
+        equal("{\"word\":\"" + KATIB + "\",\"root\":\"" + KATABA + "\",\"valid\":true,\"scheme\":\"" + FA3IL + "\"}",
+              pairs.get(0), "paire valide");
+        equal("{\"word\":\"zzz\",\"root\":\"a\\\"b\\\\c\\u0001d\\te\",\"valid\":false,\"scheme\":null}",
+              pairs.get(1), "paire invalide echappee");
+    }
+
+    private static List<String> run(Path dir, String format, String input) throws IOException {
+        Path in = Files.writeString(dir.resolve(format + ".in"), input);
+        Path out = dir.resolve(format + ".out");
+        equal(0, BatchRunner.run(new String[]{"--format", format, "--in", in.toString(), "--out", out.toString()}),
+              "code de sortie " + format);
+        return Files.readAllLines(out, StandardCharsets.UTF_8);
+    }
+
+    private static Scheme scheme(String name) {
+        return new MorphologyEngine().getCompiledSchemes().get(name);
+    }
+}
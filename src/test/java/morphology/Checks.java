@@ -0,0 +1,45 @@
+package morphology;
+
+import java.util.Objects;
+
+/**
+ * Verifications minimales des tests (sans dependance externe).
+ *
+ * Chaque classe *Test a son propre main ; test.sh les compile avec le moteur
+ * et les execute l'une apres l'autre. Une verification en echec leve une
+ * AssertionError, ce qui arrete la classe avec un code de sortie non nul.
+ */
+final class Checks {
+
+    private static int count;
+
+    private Checks() { }
+
+    static void check(boolean condition, String what) {
+        count++;
+        if (!condition) throw new AssertionError(what);
+    }
+
+    static void equal(Object expected, Object actual, String what) {
+        count++;
+        if (!Objects.equals(expected, actual))
+            throw new AssertionError(what + " : attendu " + expected + ", obtenu " + actual);
+    }
+
+    /** Verifie que l'action leve une exception du type donne. */
+    static void fails(Class<? extends Throwable> type, Runnable action, String what) {
+        count++;
+        try {
+            action.run();
+        } catch (Throwable t) {
+            if (type.isInstance(t)) return;
+            throw new AssertionError(what + " : " + type.getSimpleName() + " attendue, obtenu " + t, t);
+        }
+        throw new AssertionError(what + " : " + type.getSimpleName() + " attendue");
+    }
+
+    /** Affiche le bilan de la classe de test. */
+    static void done(String test) {
+        System.out.println("  [OK] " + test + " : " + count + " verifications");
+    }
+}
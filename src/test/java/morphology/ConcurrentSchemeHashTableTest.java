@@ -0,0 +1,124 @@
+package morphology;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static morphology.Checks.*;
+
+/**
+ * ConcurrentSchemeHashTable sous ecritures concurrentes : insertions et
+ * suppressions pendant plusieurs redimensionnements incrementaux, avec des
+ * lecteurs sans verrou qui ne doivent jamais perdre une cle stable.
+ */
+public class ConcurrentSchemeHashTableTest {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 3;
+    private static final int PER_WRITER = 3000;
+    private static final int STABLE = 500;
+
+    private static final Scheme[] VALUES = {
+        new Scheme("a", new Object[]{1, 2, 3}, "test", ""),
+        new Scheme("b", new Object[]{1, '\u0627', 2, 3}, "test", ""),
+        new Scheme("c", new Object[]{'\u0645', 1, 2, 3}, "test", ""),
+    };
+
+    public static void main(String[] args) throws Exception {
+        concurrentWrites(SchemeHash.POLYNOMIAL, "POLYNOMIAL");
+        concurrentWrites(SchemeHash.MURMUR, "MURMUR");
+        sequentialOrder();
+        done("ConcurrentSchemeHashTableTest");
+    }
+
+    private static Scheme valueOf(String key) {
+        return VALUES[Math.floorMod(key.hashCode(), VALUES.length)];
+    }
+
+    private static void concurrentWrites(SchemeHash hashFunction, String hash) throws Exception {
+        ConcurrentSchemeHashTable table = new ConcurrentSchemeHashTable(hashFunction);
+        for (int i = 0; i < STABLE; i++) table.put("stable" + i, valueOf("stable" + i));
+
+        AtomicBoolean             running = new AtomicBoolean(true);
+        AtomicReference<String>   failure = new AtomicReference<>();
+        CountDownLatch            start   = new CountDownLatch(1);
+        List<Thread>              threads = new ArrayList<>();
+
+        // Lecteurs : les cles stables restent visibles avec leur valeur pendant
+        // toutes les migrations, les cles jamais inserees restent absentes
+        for (int r = 0; r < READERS; r++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                while (running.get() && failure.get() == null) {
+                    for (int i = 0; i < STABLE; i++) {
+                        String key = "stable" + i;
+                        if (table.get(key) != valueOf(key)) failure.compareAndSet(null, "cle stable perdue : " + key);
+                    }
+                    if (table.get("absent") != null) failure.compareAndSet(null, "cle absente trouvee");
+                }
+            }));
+        }
+        // Ecrivains : chacun insere ses cles, met a jour puis supprime les impaires
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < PER_WRITER; i++) {
+                    String key = "w" + writer + "-" + i;
+                    table.put(key, VALUES[0]);
+                    table.put(key, valueOf(key));
+                    if (table.get(key) != valueOf(key)) failure.compareAndSet(null, "ecriture non visible : " + key);
+                }
+                for (int i = 1; i < PER_WRITER; i += 2) {
+                    if (!table.delete("w" + writer + "-" + i)) failure.compareAndSet(null, "suppression manquee");
+                }
+            }));
+        }
+        for (Thread t : threads) t.start();
+        start.countDown();
+        for (int i = READERS; i < threads.size(); i++) threads.get(i).join();
+        running.set(false);
+        for (Thread t : threads) t.join();
+
+        check(failure.get() == null, hash + " : " + failure.get());
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < STABLE; i++) expected.add("stable" + i);
+        for (int w = 0; w < WRITERS; w++) {
+            for (int i = 0; i < PER_WRITER; i += 2) expected.add("w" + w + "-" + i);
+        }
+        List<String> keys = table.getAllKeys();
+        equal(expected.size(), keys.size(), hash + " : nombre de cles enumerees");
+        equal(expected, new HashSet<>(keys), hash + " : cles enumerees");
+        equal(expected.size(), table.getSize(), hash + " : getSize");
+        check(table.getSize() <= 0.75 * table.getCapacity() + WRITERS, hash + " : capacite apres redimensionnement");
+        for (String key : expected) equal(valueOf(key), table.get(key), hash + " : valeur de " + key);
+        for (int w = 0; w < WRITERS; w++) equal(null, table.get("w" + w + "-1"), hash + " : cle supprimee");
+    }
+
+    // Meme ordre d'enumeration que SchemeHashTable (migration par reinsertion en tete)
+    private static void sequentialOrder() {
+        ConcurrentSchemeHashTable concurrent = new ConcurrentSchemeHashTable();
+        SchemeHashTable           plain      = new SchemeHashTable();
+        for (int i = 0; i < 1000; i++) {
+            concurrent.put("k" + i, valueOf("k" + i));
+            plain.put("k" + i, valueOf("k" + i));
+            if (i % 3 == 0) {
+                concurrent.delete("k" + (i / 2));
+                plain.delete("k" + (i / 2));
+            }
+        }
+        equal(plain.getAllKeys(), concurrent.getAllKeys(), "ordre d'enumeration");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
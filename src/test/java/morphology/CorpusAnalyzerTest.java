@@ -0,0 +1,119 @@
+package morphology;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static morphology.Checks.*;
+
+/**
+ * Decoupage du corpus (CorpusAnalyzer) : un texte vocalise dont un caractere
+ * multi-octets chevauche chaque frontiere de 4096 octets, avec formes de
+ * presentation sur 3 octets et des mots plus longs qu'une fenetre, donne les
+ * memes compteurs en tranches minimales (WINDOW) et en une seule tranche.
+ */
+public class CorpusAnalyzerTest {
+
+    private static final char[] HARAKAT = {'\u064E', '\u064F', '\u0650', '\u0652', '\u0651'};
+    private static final String[] SEPARATORS = {" ", " ", " ", "\u060C ", ".\n", "\n"};
+    private static final char KAF = '\u0643', KAF_INITIAL = '\uFEDB'; // ك ﻛ
+    private static final char TATWEEL = '\u0640';
+    // Mot etire plus long qu'une fenetre (ك + 2500 tatweel + ب) : il couvre deux frontieres
+    private static final String LONG_WORD = KAF + String.valueOf(TATWEEL).repeat(2500) + '\u0628';
+
+    private static int tokens;
+
+    public static void main(String[] args) throws IOException {
+        MorphologyEngine engine = new MorphologyEngine();
+        engine.bulkLoadRoots(MorphologyEngine.DEFAULT_ROOTS);
+        Path file = Files.createTempFile("corpus-test", ".txt");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            byte[] text = corpus(engine, 48, new Random(7));
+            Files.write(file, text);
+            CorpusAnalyzer.Report small = new CorpusAnalyzer(engine, CorpusAnalyzer.WINDOW, 1_000_000)
+                    .analyze(file, pool);
+            CorpusAnalyzer.Report whole = new CorpusAnalyzer(engine, text.length + 1, 1_000_000)
+                    .analyze(file, pool);
+
+            equal((long) tokens, whole.getTokenCount(), "mots du corpus");
+            equal(whole.getTokenCount(), small.getTokenCount(), "mots");
+            equal(whole.getMatchedTokenCount(), small.getMatchedTokenCount(), "mots analyses");
+            equal(whole.getUnknownTokenCount(), small.getUnknownTokenCount(), "mots inconnus");
+            equal(whole.getRootHits(), small.getRootHits(), "occurrences par racine");
+            equal(whole.getSchemeHits(), small.getSchemeHits(), "occurrences par scheme");
+            equal(whole.getUnknownWords(), small.getUnknownWords(), "mots inconnus conserves");
+            equal(3L, small.getUnknownWords().get(LONG_WORD), "mots etires entiers");
+            check(whole.getMatchedTokenCount() > 0 && whole.getUnknownTokenCount() > 0, "mots connus et inconnus");
+            equal((long) text.length, small.getByteCount(), "taille du fichier");
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(file);
+        }
+        done("CorpusAnalyzerTest");
+    }
+
+    // Texte de blocks × 4096 octets environ ; un caractere multi-octets chevauche chaque multiple de 4096
+    private static byte[] corpus(MorphologyEngine engine, int blocks, Random random) {
+        List<String> words = new ArrayList<>();
+        for (String root : MorphologyEngine.DEFAULT_ROOTS) words.addAll(engine.generateAllDerivatives(root).values());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tokens = 0;
+        for (int k = 1; k <= blocks; k++) {
+            int boundary = k * CorpusAnalyzer.WINDOW;
+            if (out.size() >= boundary) continue; // frontiere deja couverte par un mot etire
+            while (true) {
+                String w = word(words, random) + SEPARATORS[random.nextInt(SEPARATORS.length)];
+                if (out.size() + utf8(w) > boundary - 16) break;
+                append(out, w);
+                tokens++;
+            }
+            // Le caractere d'indice 1 du mot commence 1 ou 2 octets avant la frontiere
+            String w = k % 16 == 8 ? LONG_WORD : word(words, random);
+            int before = utf8(w.substring(0, 1)), width = utf8(w.substring(1, 2));
+            int start  = boundary - before - 1 - (width == 3 && k % 2 == 0 ? 1 : 0);
+            while (out.size() < start) out.write(' ');
+            append(out, w);
+            append(out, " ");
+            tokens++;
+        }
+        byte[] text = out.toByteArray();
+        for (int k = 1; k <= blocks; k++) {
+            check((text[k * CorpusAnalyzer.WINDOW] & 0xC0) == 0x80, "caractere a cheval sur " + k * CorpusAnalyzer.WINDOW);
+        }
+        return text;
+    }
+
+    // Mot vocalise : derive connu ou mot inconnu, avec formes de presentation
+    private static String word(List<String> words, Random random) {
+        String base = random.nextInt(10) == 0 ? unknown(random) : words.get(random.nextInt(words.size()));
+        if (random.nextInt(3) == 0) base = base.replace(KAF, KAF_INITIAL);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < base.length(); i++) {
+            sb.append(base.charAt(i));
+            if (random.nextInt(4) != 0) sb.append(HARAKAT[random.nextInt(HARAKAT.length)]);
+        }
+        return sb.toString();
+    }
+
+    // Lettres au hasard (U+0628..U+063A)
+    private static String unknown(Random random) {
+        char[] letters = new char[7 + random.nextInt(3)];
+        for (int i = 0; i < letters.length; i++) letters[i] = (char) ('\u0628' + random.nextInt(19));
+        return new String(letters);
+    }
+
+    private static void append(ByteArrayOutputStream out, String s) {
+        out.writeBytes(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
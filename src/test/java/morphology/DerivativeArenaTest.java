@@ -0,0 +1,131 @@
+package morphology;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static morphology.Checks.*;
+
+/**
+ * Arene hors tas des derives (DerivativeArena) sous concurrence : ajouts de
+ * derives sans verrou, rattachement et detachement par insertion et
+ * suppression de racines, et compaction explicite (compactDerivativeArena).
+ * Aucun derive enregistre ne doit etre perdu ni lu depuis un bloc abandonne.
+ */
+public class DerivativeArenaTest {
+
+    private static final int ADDERS = 2;
+    private static final int ADDS   = 20_000;
+    private static final int CHUNK  = 4096;  // petits blocs : nombreuses allocations et compactions
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(20);
+        Set<Integer> keys = new LinkedHashSet<>();
+        while (keys.size() < 600) keys.add(RootKey.pack(letter(random), letter(random), letter(random)));
+        List<Integer> all    = new ArrayList<>(keys);
+        List<Integer> stable = all.subList(0, 400);
+        List<Integer> churn  = all.subList(400, 600);
+
+        MorphologyEngine engine = new MorphologyEngine();
+        List<String> initial = new ArrayList<>();
+        for (int key : all) initial.add(RootKey.toString(key));
+        engine.bulkLoadRoots(initial);
+        engine.enableDerivativeArena(CHUNK);
+        List<String> schemes = new ArrayList<>();
+        for (Scheme s : engine.getAllSchemes()) schemes.add(s.getName());
+
+        Set<Long>               added     = ConcurrentHashMap.newKeySet(); // (racine stable, scheme) enregistres
+        AtomicLong              reclaimed = new AtomicLong();
+        AtomicBoolean           running   = new AtomicBoolean(true);
+        AtomicReference<String> failure   = new AtomicReference<>();
+        List<Thread>            threads   = new ArrayList<>();
+
+        for (int a = 0; a < ADDERS; a++) {
+            long seed = a;
+            threads.add(new Thread(() -> {
+                Random r = new Random(seed);
+                for (int i = 0; i < ADDS && failure.get() == null; i++) {
+                    int    key    = all.get(r.nextInt(all.size()));
+                    String scheme = schemes.get(r.nextInt(schemes.size()));
+                    if (engine.recordDerivative(RootKey.toString(key), scheme) && stable.contains(key)) {
+                        added.add((long) key << 32 | engine.getCompiledSchemes().get(scheme).getId());
+                    }
+                }
+            }));
+        }
+        // Lecteur : l'etat lu est toujours coherent (frequence = nombre de derives)
+        Thread reader = new Thread(() -> {
+            while (running.get() && failure.get() == null) {
+                for (int key : stable) {
+                    AVLNode node = engine.searchRoot(RootKey.toString(key));
+                    AVLNode.Derivatives d = node == null ? null : node.derivatives();
+                    if (node == null) failure.compareAndSet(null, "racine stable absente");
+                    else if (d != null && d.frequency != count(d)) failure.compareAndSet(null, "etat incoherent");
+                }
+            }
+        });
+        // Compactions explicites pendant les ajouts
+        Thread compactor = new Thread(() -> {
+            while (running.get() && failure.get() == null) reclaimed.addAndGet(engine.compactDerivativeArena());
+        });
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // insertRoot affiche
+        try {
+            reader.start();
+            compactor.start();
+            for (Thread t : threads) t.start();
+            // Rattachement et detachement : suppressions et reinsertions de racines
+            while (threads.stream().anyMatch(Thread::isAlive) && failure.get() == null) {
+                String root = RootKey.toString(churn.get(random.nextInt(churn.size())));
+                if (random.nextBoolean()) engine.deleteRoot(root);
+                else                      engine.insertRoot(root);
+            }
+        } finally {
+            for (Thread t : threads) t.join();
+            running.set(false);
+            reader.join();
+            compactor.join();
+            System.setOut(out);
+        }
+        check(failure.get() == null, String.valueOf(failure.get()));
+        check(reclaimed.get() > 0, "compactions effectives pendant les ajouts");
+
+        engine.compactDerivativeArena();
+        int total = 0;
+        for (int key : stable) {
+            AVLNode node = engine.getRootTree().search(key);
+            for (Scheme s : engine.getAllSchemes()) {
+                boolean expected = added.contains((long) key << 32 | s.getId());
+                if (expected != node.hasDerivative(s.getId()))
+                    throw new AssertionError("derive " + RootKey.toString(key) + " / " + s.getId());
+            }
+            equal(node.getDerivedCount(), node.getFrequency(), "frequence de " + RootKey.toString(key));
+            total += node.getDerivedCount();
+        }
+        equal(added.size(), total, "derives des racines stables");
+        check(total > 0, "derives enregistres");
+        DerivativeArena arena = engine.getDerivativeArena();
+        check(arena.getLiveBytes() > 0 && arena.getLiveBytes() <= arena.getReservedBytes(), "occupation de l'arene");
+        done("DerivativeArenaTest");
+    }
+
+    private static int count(AVLNode.Derivatives d) {
+        int n = 0;
+        for (long bits : d.bits) n += Long.bitCount(bits);
+        return n;
+    }
+
+    private static char letter(Random random) {
+        int i = random.nextInt(36);
+        return (char) (i < 26 ? 0x0621 + i : 0x0641 + i - 26);
+    }
+}
@@ -0,0 +1,89 @@
+package morphology;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static morphology.Checks.*;
+
+/**
+ * Lectures optimistes du moteur (findRoot : searchOptimistic puis validation
+ * du verrou) pendant des insertions et des suppressions. Les suppressions de
+ * nœuds a deux enfants remplacent le nœud par son successeur (raccord du
+ * sous-arbre droit) : un lecteur ne doit jamais manquer une racine stable ni
+ * trouver une racine jamais inseree.
+ */
+public class EngineConcurrencyTest {
+
+    private static final int READERS = 3;
+    private static final int WRITES  = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(11);
+        Set<Integer> keys = new LinkedHashSet<>();
+        while (keys.size() < 3000) keys.add(randomKey(random));
+        List<Integer> all    = new ArrayList<>(keys);
+        List<Integer> stable = all.subList(0, 1000);
+        List<Integer> churn  = all.subList(1000, 2000);
+        List<Integer> never  = all.subList(2000, 3000);
+
+        MorphologyEngine engine = new MorphologyEngine();
+        List<String> initial = new ArrayList<>();
+        for (int key : stable) initial.add(RootKey.toString(key));
+        for (int key : churn)  initial.add(RootKey.toString(key));
+        engine.bulkLoadRoots(initial);
+
+        AtomicBoolean           running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread>            readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(new Thread(() -> {
+                while (running.get() && failure.get() == null) {
+                    for (int key : stable) {
+                        if (!engine.containsRoot(key)) failure.compareAndSet(null, "racine stable manquee");
+                    }
+                    for (int key : never) {
+                        if (engine.containsRoot(key)) failure.compareAndSet(null, "racine jamais inseree trouvee");
+                    }
+                }
+            }));
+        }
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // insertRoot affiche
+        try {
+            for (Thread t : readers) t.start();
+            for (int i = 0; i < WRITES && failure.get() == null; i++) {
+                String root = RootKey.toString(churn.get(random.nextInt(churn.size())));
+                if (random.nextBoolean()) engine.deleteRoot(root);
+                else                      engine.insertRoot(root);
+            }
+        } finally {
+            running.set(false);
+            for (Thread t : readers) t.join();
+            System.setOut(out);
+        }
+
+        check(failure.get() == null, String.valueOf(failure.get()));
+        for (int key : stable) check(engine.containsRoot(key), "racine stable apres les ecritures");
+        int present = 0;
+        for (int key : churn) if (engine.containsRoot(key)) present++;
+        equal(stable.size() + present, engine.getRootCount(), "nombre de racines");
+        done("EngineConcurrencyTest");
+    }
+
+    private static int randomKey(Random random) {
+        return RootKey.pack(letter(random), letter(random), letter(random));
+    }
+
+    private static char letter(Random random) {
+        int i = random.nextInt(36);
+        return (char) (i < 26 ? 0x0621 + i : 0x0641 + i - 26);
+    }
+}
@@ -0,0 +1,165 @@
+package morphology;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static morphology.Checks.*;
+
+/**
+ * Instantane binaire (EngineSnapshot) : aller-retour complet en version 2,
+ * lecture d'un fichier en version 1, rejet des fichiers invalides et
+ * suppression du fichier temporaire apres un echec d'ecriture.
+ */
+public class EngineSnapshotTest {
+
+    private static final int LSN_AT = 8; // apres MAGIC, VERSION et options
+
+    interface IoAction { void run() throws IOException; }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Path dir = Files.createTempDirectory("snapshot-test");
+        try {
+            MorphologyEngine engine = sample();
+            Path file = dir.resolve("engine.snap");
+            engine.saveSnapshot(file);
+
+            MorphologyEngine loaded = MorphologyEngine.loadSnapshot(file);
+            same(engine, loaded);
+            check(loaded.isDenseRootIndexEnabled(), "index dense restaure");
+            check(loaded.isLexiconIndexEnabled(), "lexique inverse restaure");
+            check(loaded.isSchemeCatalogFrozen(), "catalogue fige restaure");
+            check(loaded.getSchemeHash() == SchemeHash.MURMUR, "hachage murmur restaure");
+
+            versionOne(engine, file, dir.resolve("v1.snap"));
+            invalid(engine, dir);
+            temporaryFile(engine, dir);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+            System.setOut(console);
+        }
+        done("EngineSnapshotTest");
+    }
+
+    // Moteur avec schemes remplaces et supprimes, derives, formes de surface et options
+    private static MorphologyEngine sample() {
+        MorphologyEngine engine = new MorphologyEngine(SchemeHash.MURMUR);
+        engine.bulkLoadRoots(MorphologyEngine.DEFAULT_ROOTS);
+        List<Scheme> schemes = engine.getAllSchemes();
+        Scheme replaced = schemes.get(0), deleted = schemes.get(1);
+        engine.addOrUpdateScheme(replaced.getName(), new Object[]{1, 2, 3, '\u0629'}, "test", "remplace");
+        engine.deleteScheme(deleted.getName());
+
+        List<String> roots = engine.getAllRoots();
+        for (int i = 0; i < roots.size(); i++) {
+            String root = roots.get(i);
+            for (Scheme s : engine.getAllSchemes()) {
+                if ((i + s.getId()) % 3 != 0) continue;
+                String word = engine.generateWord(root, s.getName());
+                if (i % 2 == 0) engine.recordDerivative(root, s.getName());
+                else engine.validateMorphology(word.charAt(0) + "\u064E" + word.substring(1), root);
+            }
+        }
+        engine.enableDenseRootIndex();
+        engine.enableLexiconIndex();
+        engine.freezeSchemes();
+        return engine;
+    }
+
+    private static void same(MorphologyEngine expected, MorphologyEngine actual) {
+        equal(expected.getAllRoots(), actual.getAllRoots(), "racines");
+        equal(names(expected.getAllSchemes()), names(actual.getAllSchemes()), "schemes actifs");
+        equal(expected.schemeRegistry().size(), actual.schemeRegistry().size(), "registre des schemes");
+        int surfaces = 0;
+        for (String root : expected.getAllRoots()) {
+            AVLNode a = expected.searchRoot(root), b = actual.searchRoot(root);
+            equal(a.getFrequency(), b.getFrequency(), "frequence de " + root);
+            equal(a.getDerivedCount(), b.getDerivedCount(), "derives de " + root);
+            equal(expected.getDerivedWords(a), actual.getDerivedWords(b), "mots derives de " + root);
+            AVLNode.Derivatives d = b.derivatives();
+            if (d != null) surfaces += d.surfaceIds.length;
+        }
+        check(surfaces > 0, "formes de surface presentes");
+    }
+
+    // Version 1 : meme format sans le LSN de l'en-tete
+    private static void versionOne(MorphologyEngine engine, Path v2, Path v1) throws IOException {
+        byte[] bytes = Files.readAllBytes(v2);
+        byte[] old   = new byte[bytes.length - 8];
+        System.arraycopy(bytes, 0, old, 0, LSN_AT);
+        System.arraycopy(bytes, LSN_AT + 8, old, LSN_AT, bytes.length - LSN_AT - 8);
+        ByteBuffer.wrap(old).putShort(4, (short) 1);
+        Files.write(v1, old);
+
+        MorphologyEngine loaded = MorphologyEngine.loadSnapshot(v1);
+        same(engine, loaded);
+        equal(0L, loaded.snapshotLsn, "LSN d'une version 1");
+    }
+
+    private static void invalid(MorphologyEngine engine, Path dir) throws IOException {
+        Path file = dir.resolve("invalid.snap");
+        AVLNode node = engine.searchRoot(engine.getAllRoots().get(0));
+        AVLNode.Derivatives saved = node.derivatives;
+
+        int schemes = engine.schemeRegistry().size();
+        node.derivatives = new AVLNode.Derivatives(new long[]{1}, new int[]{schemes}, new String[]{"x"}, 1);
+        engine.saveSnapshot(file);
+        ioFails(() -> MorphologyEngine.loadSnapshot(file), "forme de surface vers un scheme inconnu");
+
+        node.derivatives = new AVLNode.Derivatives(new long[]{6}, new int[]{2, 1}, new String[]{"x", "y"}, 2);
+        engine.saveSnapshot(file);
+        ioFails(() -> MorphologyEngine.loadSnapshot(file), "formes de surface non triees");
+
+        node.derivatives = new AVLNode.Derivatives(new long[]{2}, new int[]{1, 1}, new String[]{"x", "y"}, 1);
+        engine.saveSnapshot(file);
+        ioFails(() -> MorphologyEngine.loadSnapshot(file), "formes de surface en double");
+        node.derivatives = saved;
+
+        engine.saveSnapshot(file);
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer header = ByteBuffer.wrap(bytes);
+        header.putShort(6, (short) (header.getShort(6) | 7 << 4));
+        Files.write(file, bytes);
+        ioFails(() -> MorphologyEngine.loadSnapshot(file), "hachage inconnu");
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        ioFails(() -> MorphologyEngine.loadSnapshot(file), "instantane tronque");
+    }
+
+    // Le renommage final echoue (cible : repertoire non vide) : aucun .tmp ne reste
+    private static void temporaryFile(MorphologyEngine engine, Path dir) throws IOException {
+        Path target = Files.createDirectory(dir.resolve("target.snap"));
+        Files.createFile(target.resolve("occupe"));
+        ioFails(() -> engine.saveSnapshot(target), "renommage impossible");
+        check(!Files.exists(dir.resolve("target.snap.tmp")), "fichier temporaire supprime");
+    }
+
+    private static void ioFails(IoAction action, String what) {
+        fails(UncheckedIOException.class, () -> {
+            try {
+                action.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, what);
+    }
+
+    // Noms des schemes (l'ordre de la table de hachage depend de l'historique des insertions)
+    private static TreeSet<String> names(List<Scheme> schemes) {
+        TreeSet<String> names = new TreeSet<>();
+        for (Scheme s : schemes) names.add(s.getName());
+        return names;
+    }
+}
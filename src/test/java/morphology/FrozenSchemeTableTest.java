@@ -0,0 +1,60 @@
+package morphology;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static morphology.Checks.*;
+
+/**
+ * Hachage parfait des schemes (FrozenSchemeTable) et catalogue fige du moteur :
+ * le catalogue reste fige apres un ajout ou une suppression de scheme.
+ */
+public class FrozenSchemeTableTest {
+
+    public static void main(String[] args) {
+        table();
+        engine();
+        done("FrozenSchemeTableTest");
+    }
+
+    private static void table() {
+        for (int n : new int[]{0, 1, 2, 7, 100, 1000}) {
+            List<Scheme> schemes = new ArrayList<>();
+            for (int i = 0; i < n; i++) schemes.add(scheme("s" + i));
+            FrozenSchemeTable table = new FrozenSchemeTable(schemes);
+            equal(n, table.getSize(), "taille");
+            for (Scheme s : schemes) check(table.get(s.getName()) == s, "scheme " + s.getName());
+            check(table.get("absent") == null, "nom absent (n=" + n + ")");
+            check(!table.contains("s" + n), "nom hors table (n=" + n + ")");
+        }
+        fails(IllegalArgumentException.class,
+                () -> new FrozenSchemeTable(List.of(scheme("a"), scheme("a"))), "noms en double");
+    }
+
+    private static void engine() {
+        MorphologyEngine engine = new MorphologyEngine();
+        int before = engine.getSchemeCount();
+        engine.freezeSchemes();
+        check(engine.isSchemeCatalogFrozen(), "moteur fige");
+        check(engine.getCompiledSchemes().isFrozen(), "ensemble compile fige");
+
+        String name = "\u0641\u0639\u0651\u0644"; // فعّل
+        engine.addOrUpdateScheme(name, new Object[]{1, 2, '\u0651', 3}, "verbe", "test");
+        check(engine.getCompiledSchemes().isFrozen(), "toujours fige apres ajout");
+        equal(before + 1, engine.getSchemeCount(), "schemes apres ajout");
+        check(engine.getCompiledSchemes().get(name) != null, "nouveau scheme trouve");
+
+        check(engine.deleteScheme(name), "suppression");
+        check(engine.getCompiledSchemes().isFrozen(), "toujours fige apres suppression");
+        check(engine.getCompiledSchemes().get(name) == null, "scheme supprime absent");
+
+        engine.unfreezeSchemes();
+        check(!engine.isSchemeCatalogFrozen(), "moteur defige");
+        check(!engine.getCompiledSchemes().isFrozen(), "index dynamique");
+        equal(before, engine.getSchemeCount(), "schemes apres defigement");
+    }
+
+    private static Scheme scheme(String name) {
+        return new Scheme(name, new Object[]{1, 2, 3}, "", "");
+    }
+}
@@ -0,0 +1,303 @@
+package morphology;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static morphology.Checks.*;
+
+/**
+ * Journal des modifications (MutationJournal) et reprise (MorphologyEngine.recover) :
+ * instantane de base, fin de journal tronquee ou corrompue, arret entre
+ * l'instantane et la compaction, validation groupee (syncBatch > 1), ecriture
+ * anticipee en cas d'erreur, derives enregistres pendant une compaction et
+ * compaction en echec.
+ */
+public class MutationJournalTest {
+
+    // Racines hors des racines par defaut
+    private static final String[] ROOTS = {
+        "\u0637\u0644\u0628", "\u0631\u0633\u0645", "\u0628\u062D\u062B",   // طلب رسم بحث
+        "\u063A\u0633\u0644", "\u0635\u0628\u0631", "\u0644\u0639\u0628"    // غسل صبر لعب
+    };
+    private static final String MIFAL = "\u0645\u0641\u0639\u0627\u0644";       // مفعال
+
+    private static Path dir;
+
+    public static void main(String[] args) throws Exception {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        dir = Files.createTempDirectory("journal-test");
+        try {
+            baseline();
+            tornTail();
+            corruptTail();
+            snapshotBeforeCompact();
+            groupCommit();
+            concurrentCheckpoint();
+            writeAhead();
+            failedCompaction();
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+            System.setOut(console);
+        }
+        done("MutationJournalTest");
+    }
+
+    // L'etat anterieur au journal est retrouve grace a l'instantane de base
+    private static void baseline() throws IOException {
+        Path snap = dir.resolve("base.snap"), jnl = dir.resolve("base.jnl");
+        MorphologyEngine engine = new MorphologyEngine();
+        engine.bulkLoadRoots(MorphologyEngine.DEFAULT_ROOTS);
+        String root = MorphologyEngine.DEFAULT_ROOTS.get(0);
+        check(engine.recordDerivative(root, engine.getAllSchemes().get(0).getName()), "derive avant journal");
+
+        fails(IllegalStateException.class, () -> enable(engine, jnl), "journal sans instantane sur un moteur non vide");
+        engine.enableJournal(snap, jnl, 1, 0);
+        engine.insertRoot(ROOTS[0]);
+        String expected = state(engine);
+        engine.closeJournal();
+
+        MorphologyEngine recovered = MorphologyEngine.recover(snap, jnl, 1, 0);
+        equal(expected, state(recovered), "etat anterieur au journal");
+        equal(21, recovered.getRootCount(), "racines retrouvees");
+        equal(1, recovered.searchRoot(root).getDerivedCount(), "derive retrouve");
+        recovered.closeJournal();
+
+        Path fresh = dir.resolve("fresh.jnl");
+        MorphologyEngine empty = new MorphologyEngine();
+        enable(empty, fresh);
+        empty.insertRoot(ROOTS[1]);
+        empty.closeJournal();
+        MorphologyEngine again = MorphologyEngine.recover(dir.resolve("absent.snap"), fresh, 1, 0);
+        equal(List.of(ROOTS[1]), again.getAllRoots(), "moteur neuf sans instantane");
+        again.closeJournal();
+    }
+
+    // Arret brutal au milieu du dernier enregistrement : il est ignore puis ecrase
+    private static void tornTail() throws IOException {
+        Path snap = dir.resolve("torn.snap"), jnl = dir.resolve("torn.jnl");
+        MorphologyEngine engine = journaled(snap, jnl, 1);
+        for (int i = 0; i < 3; i++) engine.insertRoot(ROOTS[i]);
+        engine.closeJournal();
+        truncate(jnl, Files.size(jnl) - 3);
+
+        MorphologyEngine recovered = MorphologyEngine.recover(snap, jnl, 1, 0);
+        check(recovered.searchRoot(ROOTS[1]) != null, "enregistrement complet rejoue");
+        check(recovered.searchRoot(ROOTS[2]) == null, "enregistrement tronque ignore");
+        recovered.insertRoot(ROOTS[3]);
+        String expected = state(recovered);
+        recovered.closeJournal();
+
+        MorphologyEngine again = MorphologyEngine.recover(snap, jnl, 1, 0);
+        equal(expected, state(again), "ajout apres une fin tronquee");
+        again.closeJournal();
+    }
+
+    // Un CRC faux arrete la relecture a cet enregistrement
+    private static void corruptTail() throws IOException {
+        Path snap = dir.resolve("crc.snap"), jnl = dir.resolve("crc.jnl");
+        MorphologyEngine engine = journaled(snap, jnl, 1);
+        engine.insertRoot(ROOTS[0]);
+        engine.insertRoot(ROOTS[1]);
+        engine.closeJournal();
+        byte[] bytes = Files.readAllBytes(jnl);
+        bytes[bytes.length - 1] ^= 0x40;
+        Files.write(jnl, bytes);
+
+        MorphologyEngine recovered = MorphologyEngine.recover(snap, jnl, 1, 0);
+        check(recovered.searchRoot(ROOTS[0]) != null, "enregistrement sain rejoue");
+        check(recovered.searchRoot(ROOTS[1]) == null, "enregistrement corrompu ignore");
+        recovered.closeJournal();
+    }
+
+    // Instantane ecrit, arret avant compact() : rien n'est rejoue deux fois
+    private static void snapshotBeforeCompact() throws IOException {
+        Path snap = dir.resolve("cp.snap"), jnl = dir.resolve("cp.jnl");
+        MorphologyEngine engine = journaled(snap, jnl, 1);
+        engine.addOrUpdateScheme(MIFAL, new Object[]{'\u0645', 1, 2, '\u0627', 3}, "nom", "test");
+        engine.insertRoot(ROOTS[0]);
+        engine.recordDerivative(ROOTS[0], MIFAL);
+        engine.insertRoot(ROOTS[1]);
+        engine.deleteRoot(ROOTS[1]);
+        engine.saveSnapshot(snap);               // premiere etape de checkpoint, sans compaction
+        engine.insertRoot(ROOTS[2]);
+        String expected = state(engine);
+        engine.closeJournal();
+
+        MorphologyEngine recovered = MorphologyEngine.recover(snap, jnl, 1, 0);
+        equal(expected, state(recovered), "etat apres arret avant compaction");
+        recovered.checkpoint(snap);
+        recovered.closeJournal();
+        MorphologyEngine again = MorphologyEngine.recover(snap, jnl, 1, 0);
+        equal(expected, state(again), "etat apres compaction");
+        again.closeJournal();
+    }
+
+    // syncBatch > 1 : seuls les lots complets (ou synchronises par le thread de fond) sont sur disque
+    private static void groupCommit() throws Exception {
+        Path snap = dir.resolve("batch.snap"), jnl = dir.resolve("batch.jnl");
+        MorphologyEngine engine = journaled(snap, jnl, 4);
+        for (int i = 0; i < 6; i++) engine.insertRoot(ROOTS[i]);
+        MorphologyEngine crashed = crashCopy(snap, jnl, "batch-crash");
+        equal(24, crashed.getRootCount(), "lot complet durable, lot partiel perdu");
+        check(crashed.searchRoot(ROOTS[3]) != null && crashed.searchRoot(ROOTS[4]) == null, "limite du lot");
+        crashed.closeJournal();
+        engine.closeJournal();
+        MorphologyEngine closed = MorphologyEngine.recover(snap, jnl, 1, 0);
+        equal(26, closed.getRootCount(), "fermeture : tout est durable");
+        closed.closeJournal();
+
+        Path snap2 = dir.resolve("timer.snap"), jnl2 = dir.resolve("timer.jnl");
+        MorphologyEngine timed = new MorphologyEngine();
+        timed.bulkLoadRoots(MorphologyEngine.DEFAULT_ROOTS);
+        timed.enableJournal(snap2, jnl2, 1000, 20);
+        for (int i = 0; i < 3; i++) timed.insertRoot(ROOTS[i]);
+        int count = 0;
+        for (int attempt = 0; attempt < 100 && count != 23; attempt++) {
+            Thread.sleep(20);
+            MorphologyEngine copy = crashCopy(snap2, jnl2, "timer-crash");
+            count = copy.getRootCount();
+            copy.closeJournal();
+        }
+        equal(23, count, "synchronisation par le thread de fond");
+        timed.closeJournal();
+    }
+
+    // Derives enregistres pendant les compactions : aucun n'est perdu a la reprise
+    private static void concurrentCheckpoint() throws Exception {
+        Path snap = dir.resolve("race.snap"), jnl = dir.resolve("race.jnl");
+        MorphologyEngine engine = journaled(snap, jnl, 1);
+        List<String> roots   = MorphologyEngine.DEFAULT_ROOTS;
+        List<Scheme> schemes = engine.getAllSchemes();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int first = t;
+            writers[t] = new Thread(() -> {
+                try {
+                    for (int r = first; r < roots.size(); r += writers.length)
+                        for (Scheme s : schemes) engine.recordDerivative(roots.get(r), s.getName());
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+        }
+        Thread checkpoints = new Thread(() -> {
+            try {
+                while (running.get()) engine.checkpoint(snap);
+            } catch (Throwable e) {
+                error.compareAndSet(null, e);
+            }
+        });
+        checkpoints.start();
+        for (Thread w : writers) w.start();
+        for (Thread w : writers) w.join();
+        running.set(false);
+        checkpoints.join();
+        check(error.get() == null, "aucune erreur concurrente : " + error.get());
+
+        String expected = state(engine);
+        engine.closeJournal();
+        MorphologyEngine recovered = MorphologyEngine.recover(snap, jnl, 1, 0);
+        equal(expected, state(recovered), "derives conserves malgre les compactions");
+        recovered.closeJournal();
+    }
+
+    // Erreur d'ecriture du journal : la modification n'est pas appliquee
+    private static void writeAhead() throws IOException {
+        Path snap = dir.resolve("wal.snap"), jnl = dir.resolve("wal.jnl");
+        MorphologyEngine engine = journaled(snap, jnl, 1);
+        engine.insertRoot(ROOTS[0]);
+        int roots = engine.getRootCount();
+
+        engine.journal().channel().close();
+        fails(UncheckedIOException.class, () -> engine.insertRoot(ROOTS[1]), "insertion non journalisee");
+        check(engine.searchRoot(ROOTS[1]) == null, "racine non inseree");
+        fails(UncheckedIOException.class, () -> engine.deleteRoot(ROOTS[0]), "journal en echec");
+        check(engine.searchRoot(ROOTS[0]) != null, "racine non supprimee");
+        String scheme = engine.getAllSchemes().get(0).getName();
+        fails(UncheckedIOException.class, () -> engine.deleteScheme(scheme), "scheme non supprime");
+        check(engine.getCompiledSchemes().get(scheme) != null, "scheme toujours present");
+        equal(roots, engine.getRootCount(), "moteur inchange");
+    }
+
+    // Compaction impossible : le journal reste ouvert et utilisable
+    private static void failedCompaction() throws IOException {
+        Path snap = dir.resolve("fc.snap"), jnl = dir.resolve("fc.jnl");
+        MorphologyEngine engine = journaled(snap, jnl, 1);
+        engine.insertRoot(ROOTS[0]);
+        Path blocker = Files.createDirectory(dir.resolve("fc.jnl.tmp"));
+        Files.createFile(blocker.resolve("occupe"));
+        fails(UncheckedIOException.class, () -> {
+            try {
+                engine.checkpoint(snap);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, "compaction impossible");
+        engine.insertRoot(ROOTS[1]);
+        String expected = state(engine);
+        engine.closeJournal();
+
+        MorphologyEngine recovered = MorphologyEngine.recover(snap, jnl, 1, 0);
+        equal(expected, state(recovered), "journal utilisable apres echec");
+        recovered.closeJournal();
+    }
+
+    // ── Utilitaires ───────────────────────────────────────────────────────────
+
+    // Moteur aux racines par defaut, journalise a partir d'un instantane de base
+    private static MorphologyEngine journaled(Path snap, Path jnl, int syncBatch) throws IOException {
+        MorphologyEngine engine = new MorphologyEngine();
+        engine.bulkLoadRoots(MorphologyEngine.DEFAULT_ROOTS);
+        engine.enableJournal(snap, jnl, syncBatch, 0);
+        return engine;
+    }
+
+    // Reprise sur une copie des fichiers tels qu'ils sont sur disque (arret brutal simule)
+    private static MorphologyEngine crashCopy(Path snap, Path jnl, String name) throws IOException {
+        Path s = dir.resolve(name + ".snap"), j = dir.resolve(name + ".jnl");
+        Files.copy(snap, s, StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(jnl, j, StandardCopyOption.REPLACE_EXISTING);
+        return MorphologyEngine.recover(s, j, 1, 0);
+    }
+
+    private static void enable(MorphologyEngine engine, Path jnl) {
+        try {
+            engine.enableJournal(jnl, 1, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(size);
+        }
+    }
+
+    // Racines, derives (avec frequences) et taille du registre des schemes
+    private static String state(MorphologyEngine engine) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(engine.schemeRegistry().size()).append('|');
+        for (String root : engine.getAllRoots()) {
+            AVLNode node = engine.searchRoot(root);
+            sb.append(root).append(node.getFrequency()).append(engine.getDerivedWords(node)).append(';');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package morphology;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static morphology.Checks.*;
+
+/**
+ * Normaliseur du moteur (setNormalizer) avec replis de lettres : recherche
+ * des racines, schemes a lettre fixe repliee (ة), lexique inverse, lexique
+ * statique, segmentation, refus sur un moteur non vide et persistance dans
+ * l'instantane et le journal.
+ */
+public class NormalizerTest {
+
+    private static final String AKALA      = "\u0623\u0643\u0644";                // أكل
+    private static final String AKALA_BARE = "\u0627\u0643\u0644";                // اكل
+    private static final String KATABA     = "\u0643\u062A\u0628";                // كتب
+    private static final String KATIBA     = "\u0643\u0627\u062A\u0628\u0629";    // كاتبة
+    private static final String KATIBA_HA  = "\u0643\u0627\u062A\u0628\u0647";    // كاتبه
+    private static final String FA3ILA     = "\u0641\u0627\u0639\u0644\u0629";    // فاعلة
+    private static final String WAL        = "\u0648\u0627\u0644";                // وال
+
+    public static void main(String[] args) throws IOException {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Path dir = Files.createTempDirectory("normalizer-test");
+        try {
+            MorphologyEngine engine = folding();
+            roots(engine);
+            analysis(engine);
+            lexicon();
+            staticLexicon(engine, dir.resolve("forms.mlex"));
+            fails(IllegalStateException.class, () -> engine.setNormalizer(ArabicNormalizer.DEFAULT),
+                  "normaliseur modifie sur un moteur non vide");
+            snapshot(engine, dir.resolve("engine.snap"));
+            journal(dir);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+            System.setOut(console);
+        }
+        done("NormalizerTest");
+    }
+
+    private static MorphologyEngine folding() {
+        MorphologyEngine engine = new MorphologyEngine();
+        engine.setNormalizer(ArabicNormalizer.FOLDING);
+        engine.insertRoot(AKALA);
+        engine.insertRoot(KATABA);
+        return engine;
+    }
+
+    private static void roots(MorphologyEngine engine) {
+        check(engine.searchRoot(AKALA) != null, "racine a hamza retrouvee");
+        check(engine.searchRoot(AKALA_BARE) != null, "racine sans hamza retrouvee");
+        equal(AKALA_BARE, engine.cleanRoot(AKALA), "racine repliee");
+    }
+
+    private static void analysis(MorphologyEngine engine) {
+        check(hasScheme(engine.analyzeWord(KATIBA), FA3ILA), "scheme en ta marbuta reconnu");
+        check(hasScheme(engine.analyzeWord(KATIBA_HA), FA3ILA), "scheme en ta marbuta reconnu (ha)");
+        check(engine.validateMorphology(KATIBA, KATABA).isValid(), "validation d'un mot en ta marbuta");
+        check(hasScheme(engine.analyzeWordSegmented(WAL + KATIBA), FA3ILA), "segmentation avec repli");
+    }
+
+    private static void lexicon() {
+        MorphologyEngine engine = folding();
+        engine.enableLexiconIndex();
+        ValidationResult vr = engine.validateMorphology(KATIBA, KATABA);
+        check(vr.isValid(), "validation par le lexique inverse");
+        equal(FA3ILA, vr.getScheme().getName(), "scheme trouve par le lexique inverse");
+        check(engine.validateMorphology(KATIBA_HA, KATABA).isValid(), "lexique inverse : forme repliee");
+    }
+
+    private static void staticLexicon(MorphologyEngine engine, Path file) throws IOException {
+        engine.exportStaticLexicon(file);
+        StaticLexicon lex = StaticLexicon.open(file);
+        check(hasScheme(lex.analyzeWord(KATIBA), FA3ILA), "lexique statique : mot en ta marbuta");
+        check(hasScheme(lex.analyzeWord(KATIBA_HA), FA3ILA), "lexique statique : forme repliee");
+    }
+
+    private static void snapshot(MorphologyEngine engine, Path file) throws IOException {
+        engine.saveSnapshot(file);
+        MorphologyEngine loaded = MorphologyEngine.loadSnapshot(file);
+        equal(ArabicNormalizer.FOLDING.getFlags(), loaded.getNormalizer().getFlags(), "normaliseur restaure");
+        check(loaded.searchRoot(AKALA) != null, "racine retrouvee apres rechargement");
+        check(hasScheme(loaded.analyzeWord(KATIBA), FA3ILA), "scheme replie apres rechargement");
+    }
+
+    private static void journal(Path dir) throws IOException {
+        Path snapshot = dir.resolve("journal.snap"), file = dir.resolve("engine.wal");
+        MorphologyEngine engine = new MorphologyEngine();
+        engine.setNormalizer(ArabicNormalizer.FOLDING);
+        fails(IllegalStateException.class, () -> {
+            try {
+                engine.enableJournal(file, 1, 0);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }, "journal sans instantane avec un autre normaliseur");
+
+        MorphologyEngine logged = new MorphologyEngine();
+        logged.enableJournal(file, 1, 0);
+        logged.setNormalizer(ArabicNormalizer.FOLDING);
+        logged.insertRoot(AKALA);
+        logged.closeJournal();
+
+        MorphologyEngine recovered = MorphologyEngine.recover(snapshot, file, 1, 0);
+        recovered.closeJournal();
+        equal(ArabicNormalizer.FOLDING.getFlags(), recovered.getNormalizer().getFlags(), "normaliseur rejoue");
+        check(recovered.searchRoot(AKALA) != null, "racine retrouvee apres reprise");
+    }
+
+    private static boolean hasScheme(List<ValidationResult> results, String name) {
+        for (ValidationResult vr : results) if (vr.getScheme().getName().equals(name)) return true;
+        return false;
+    }
+}
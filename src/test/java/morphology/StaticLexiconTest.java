@@ -0,0 +1,70 @@
+package morphology;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static morphology.Checks.*;
+
+/**
+ * Lexique statique (StaticLexicon) : seules les formes que le scheme reconnait
+ * en retour sont exportees, et l'analyse d'un mot par le lexique projete
+ * donne les memes paires (racine, scheme) que MorphologyEngine.analyzeWord.
+ */
+public class StaticLexiconTest {
+
+    private static final String FA3 = "\u0641\u0627\u0639"; // فاع (sans C3)
+    private static final String KAT = "\u0643\u0627\u062A"; // كات
+
+    public static void main(String[] args) throws IOException {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Path dir = Files.createTempDirectory("lexicon-test");
+        try {
+            MorphologyEngine engine = new MorphologyEngine();
+            engine.bulkLoadRoots(MorphologyEngine.DEFAULT_ROOTS);
+            engine.addOrUpdateScheme(FA3, new Object[]{1, '\u0627', 2}, "test", "scheme sans C3");
+            Path file = dir.resolve("forms.mlex");
+            int written = engine.exportStaticLexicon(file);
+            StaticLexicon lex = StaticLexicon.open(file);
+            equal(written, lex.size(), "nombre de formes");
+
+            check(!hasScheme(engine.analyzeWord(KAT), FA3), "forme sans C3 non reconnue par le moteur");
+            check(!hasScheme(lex.analyzeWord(KAT), FA3), "forme sans C3 non exportee");
+
+            for (String root : MorphologyEngine.DEFAULT_ROOTS) {
+                for (String word : engine.generateAllDerivatives(root).values()) {
+                    equal(pairs(engine, engine.analyzeWord(word)), pairs(null, lex.analyzeWord(word)),
+                          "analyse de " + word);
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+            System.setOut(console);
+        }
+        done("StaticLexiconTest");
+    }
+
+    private static boolean hasScheme(List<ValidationResult> results, String name) {
+        for (ValidationResult vr : results) if (vr.getScheme().getName().equals(name)) return true;
+        return false;
+    }
+
+    // Paires racine + scheme ; avec un moteur, seules les racines indexees sont gardees
+    private static Set<String> pairs(MorphologyEngine engine, List<ValidationResult> results) {
+        Set<String> pairs = new TreeSet<>();
+        for (ValidationResult vr : results) {
+            if (engine != null && engine.searchRoot(vr.getExtractedRoot()) == null) continue;
+            pairs.add(vr.getExtractedRoot() + vr.getScheme().getName());
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,16 @@
+#!/bin/bash
+# ─────────────────────────────────────────────────────────────────────────────
+#  Moteur Morphologique Arabe — Compilation et execution des tests
+# ─────────────────────────────────────────────────────────────────────────────
+
+set -e
+
+OUT="out-test"
+
+rm -rf "$OUT"
+mkdir -p "$OUT"
+javac -encoding UTF-8 -d "$OUT" src/main/java/morphology/*.java src/test/java/morphology/*.java
+
+for f in src/test/java/morphology/*Test.java; do
+    java -Dfile.encoding=UTF-8 -cp "$OUT" "morphology.$(basename "$f" .java)"
+done